@@ -0,0 +1,86 @@
+package blog.benchmark;
+
+import blog.model.PostBatch;
+import blog.model.PostNotFoundException;
+import blog.model.PostRepository;
+import blog.model.PostSearchIndex;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares editing the title and content of many posts with one modifyPost call per
+ * field against a single PostRepository.update batch, on a journaled repository
+ * followed by a search index as in the application.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchUpdateBenchmark {
+
+    private static final int SIZE = 10_000;
+
+    @Param({"10", "100", "1000"})
+    public int edits;
+
+    private PostRepository repository;
+    private PostSearchIndex searchIndex;
+    private int round;
+
+    /**
+     * Opens a journaled repository in a temporary directory and indexes its posts.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path directory = Files.createTempDirectory("batch-update-benchmark");
+        repository = PostRepository.open(directory);
+        repository.addPosts(BenchmarkData.posts(SIZE, 100));
+        searchIndex = new PostSearchIndex(repository);
+        searchIndex.build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        searchIndex.dispose();
+        repository.close();
+    }
+
+    @Benchmark
+    public void separateCalls() throws PostNotFoundException {
+        int r = round++;
+        for (int i = 1; i <= edits; i++) {
+            repository.modifyPost(i, "Tytuł " + r, PostRepository.ModificationType.TITLE);
+            repository.modifyPost(i, "Treść " + r, PostRepository.ModificationType.CONTENT);
+        }
+    }
+
+    @Benchmark
+    public void oneBatch() throws PostNotFoundException {
+        int r = round++;
+        PostBatch batch = new PostBatch();
+        for (int i = 1; i <= edits; i++) {
+            batch.modifyTitle(i, "Tytuł " + r).modifyContent(i, "Treść " + r);
+        }
+        repository.update(batch);
+    }
+}
@@ -0,0 +1,62 @@
+package blog.benchmark;
+
+import blog.model.Post;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates synthetic posts for the benchmarks.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {}
+
+    /**
+     * Generates posts with unique titles and authors assigned round-robin.
+     *
+     * @param size the number of posts
+     * @param authors the number of distinct authors
+     * @return the generated posts
+     */
+    static List<Post> posts(int size, int authors) {
+        List<Post> posts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            posts.add(post(i, authors));
+        }
+        return posts;
+    }
+
+    /**
+     * Generates the post with the given number.
+     *
+     * @param i the post number
+     * @param authors the number of distinct authors
+     * @return the post
+     */
+    static Post post(int i, int authors) {
+        return new Post(title(i), author(i % authors), "Treść posta numer " + i + ". Lorem ipsum dolor sit amet.");
+    }
+
+    /**
+     * Returns the title generated for the post with the given number.
+     *
+     * @param i the post number
+     * @return the title
+     */
+    static String title(int i) {
+        return "Post " + i;
+    }
+
+    /**
+     * Returns the name generated for the author with the given number.
+     *
+     * @param i the author number
+     * @return the author name
+     */
+    static String author(int i) {
+        return "Autor " + i;
+    }
+}
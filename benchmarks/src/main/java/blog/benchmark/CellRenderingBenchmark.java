@@ -0,0 +1,98 @@
+package blog.benchmark;
+
+import blog.controller.PagedPostList;
+import blog.model.Post;
+import blog.model.PostRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javafx.beans.property.SimpleStringProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Simulates scrolling the post table: every invocation is one frame that moves the
+ * viewport by a few rows and produces the text of all visible cells, as the table's
+ * cells do on a layout pass. Compares the former per-cell SimpleStringProperty value
+ * factories showing the full content with {@code PostTableCell}'s direct field reads
+ * and cached content preview.
+ *
+ * Run with {@code -prof gc}; {@code gc.alloc.rate.norm} is the allocation per frame.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CellRenderingBenchmark {
+
+    private static final int SIZE = 100_000;
+    private static final int VISIBLE_ROWS = 30;
+    private static final int ROWS_PER_FRAME = 3;
+
+    @Param({"64", "2000"})
+    public int contentLength;
+
+    private PagedPostList posts;
+    private int top;
+
+    /**
+     * Builds a repository with contents of the given length and the paged list the
+     * tables are bound to.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        String filler = "Zażółć gęślą jaźń, lorem ipsum dolor sit amet. ".repeat(contentLength / 47 + 1);
+        List<Post> initial = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            initial.add(new Post(BenchmarkData.title(i), BenchmarkData.author(i % 1000),
+                    (i + " " + filler).substring(0, contentLength)));
+        }
+        posts = new PagedPostList(new PostRepository(initial), Runnable::run);
+    }
+
+    @Benchmark
+    public void propertyPerCell(Blackhole blackhole) {
+        int first = nextFrame();
+        for (int i = first; i < first + VISIBLE_ROWS; i++) {
+            Post post = posts.get(i);
+            blackhole.consume(new SimpleStringProperty(post.getTitle()).get());
+            blackhole.consume(new SimpleStringProperty(post.getAuthor()).get());
+            blackhole.consume(new SimpleStringProperty(post.getContent()).get());
+        }
+    }
+
+    @Benchmark
+    public void directFieldCells(Blackhole blackhole) {
+        int first = nextFrame();
+        for (int i = first; i < first + VISIBLE_ROWS; i++) {
+            Post post = posts.get(i);
+            blackhole.consume(post.getTitle());
+            blackhole.consume(post.getAuthor());
+            blackhole.consume(post.getContentPreview());
+        }
+    }
+
+    private int nextFrame() {
+        top += ROWS_PER_FRAME;
+        if (top + VISIBLE_ROWS > SIZE) {
+            top = 0;
+        }
+        return top;
+    }
+}
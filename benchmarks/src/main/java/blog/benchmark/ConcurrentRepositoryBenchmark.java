@@ -0,0 +1,113 @@
+package blog.benchmark;
+
+import blog.model.Post;
+import blog.model.PostNotFoundException;
+import blog.model.PostRepository;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mixed read/write load on one shared PostRepository. Reader threads page through the
+ * posts and look up authors while one writer adds, renames and deletes posts.
+ *
+ * To see how read throughput scales with cores, vary the reader thread count with
+ * JMH's group distribution option, e.g. {@code -tg 1,1}, {@code -tg 3,1}, {@code -tg 7,1}.
+ *
+ * The benchmark doubles as a stress test: after every iteration the repository is
+ * checked for consistency between the post list and the indexes, and the run fails
+ * if they disagree.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentRepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 64;
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"1000"})
+    public int authors;
+
+    private PostRepository repository;
+    private final AtomicInteger nextPost = new AtomicInteger();
+
+    /**
+     * Builds a repository with the configured number of posts.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new PostRepository(BenchmarkData.posts(size, authors));
+        nextPost.set(size);
+    }
+
+    /**
+     * Verifies that every post is reachable through the author index exactly once.
+     */
+    @TearDown(Level.Iteration)
+    public void verify() {
+        int indexed = 0;
+        for (int i = 0; i < authors; i++) {
+            indexed += repository.getPostsByAuthor(BenchmarkData.author(i)).size();
+        }
+        int count = repository.getPostCount();
+        int listed = repository.getallPosts().size();
+        if (indexed != count || listed != count) {
+            throw new IllegalStateException("Inconsistent repository: count=" + count
+                    + ", listed=" + listed + ", indexed=" + indexed);
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public List<Post> readPage() {
+        int count = repository.getPostCount();
+        return repository.getPosts(ThreadLocalRandom.current().nextInt(Math.max(1, count)), PAGE_SIZE);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public List<Post> readByAuthor() {
+        return repository.getPostsByAuthor(BenchmarkData.author(ThreadLocalRandom.current().nextInt(authors)));
+    }
+
+    /**
+     * Adds a new post, renames it and deletes it again, so the dataset size stays constant.
+     */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void write() throws PostNotFoundException {
+        int i = nextPost.getAndIncrement();
+        Post post = BenchmarkData.post(i, authors);
+        repository.addPost(post);
+        repository.modifyPost(post.getTitle(), post.getTitle() + " (zmieniony)", PostRepository.ModificationType.TITLE);
+        repository.deletePost(post.getTitle());
+    }
+}
@@ -0,0 +1,242 @@
+package blog.benchmark;
+
+import blog.metrics.LatencyHistogram;
+import blog.metrics.MetricRegistry;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drives a running headless blog server ({@code Launcher --headless}) with a closed loop
+ * of concurrent clients and reports the throughput and latency percentiles.
+ *
+ * Every client runs on its own virtual thread with its own keep-alive connection and
+ * sends its next request as soon as the previous one is answered. Reads fetch single
+ * posts by id, chosen uniformly from the first page of posts; writes change the title
+ * of such a post, so the number of posts stays constant. Latencies measured during the warmup are discarded.
+ *
+ * Options: {@code --url=http://localhost:8080}, {@code --clients=64},
+ * {@code --seconds=10}, {@code --warmup=3}, {@code --writes=0.05} (share of writes).
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public final class HttpLoadGenerator {
+
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+
+    private HttpLoadGenerator() {}
+
+    /**
+     * Runs the load and prints the report.
+     *
+     * @param args the options
+     * @throws Exception if the server cannot be reached
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (arg.startsWith("--") && equals > 2) {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        String url = options.getOrDefault("url", "http://localhost:8080");
+        int clients = Integer.parseInt(options.getOrDefault("clients", "64"));
+        long seconds = Long.parseLong(options.getOrDefault("seconds", "10"));
+        long warmup = Long.parseLong(options.getOrDefault("warmup", "3"));
+        double writes = Double.parseDouble(options.getOrDefault("writes", "0.05"));
+
+        URI server = URI.create(url);
+        String host = server.getHost();
+        int port = server.getPort() < 0 ? 80 : server.getPort();
+        long[] ids;
+        try (Connection connection = new Connection(host, port)) {
+            ids = fetchIds(connection);
+        }
+        if (ids.length == 0) {
+            throw new IllegalStateException("The server at " + url + " has no posts to read.");
+        }
+
+        MetricRegistry metrics = new MetricRegistry();
+        LatencyHistogram reads = metrics.histogram("load.read");
+        LatencyHistogram updates = metrics.histogram("load.write");
+        AtomicLong errors = new AtomicLong();
+        long warmupEnd = System.nanoTime() + Duration.ofSeconds(warmup).toNanos();
+        long end = warmupEnd + Duration.ofSeconds(seconds).toNanos();
+        List<Runnable> workers = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            workers.add(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Connection connection = null;
+                long now;
+                while ((now = System.nanoTime()) < end) {
+                    long id = ids[random.nextInt(ids.length)];
+                    boolean write = random.nextDouble() < writes;
+                    try {
+                        if (connection == null) {
+                            connection = new Connection(host, port);
+                        }
+                        int status = write
+                                ? connection.send("PATCH", "/posts/" + id,
+                                        "{\"title\":\"Post " + id + " rev " + random.nextInt(1000) + "\"}")
+                                : connection.send("GET", "/posts/" + id, null);
+                        if (status >= 400) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                        connection = closeQuietly(connection);
+                    }
+                    if (now >= warmupEnd) {
+                        (write ? updates : reads).recordSince(now);
+                    }
+                }
+                closeQuietly(connection);
+            });
+        }
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        workers.forEach(executor::execute);
+        executor.shutdown();
+        executor.awaitTermination(seconds + warmup + 60, TimeUnit.SECONDS);
+
+        System.out.printf(Locale.ROOT, "%d clients, %d s (+%d s warmup), %.0f%% writes, %d errors%n",
+                clients, seconds, warmup, 100 * writes, errors.get());
+        print("read", reads, seconds);
+        print("write", updates, seconds);
+    }
+
+    /**
+     * Reads the ids of the first page of posts.
+     */
+    private static long[] fetchIds(Connection connection) throws IOException {
+        int status = connection.send("GET", "/posts?limit=1000", null);
+        String body = new String(connection.body, 0, connection.bodyLength, StandardCharsets.UTF_8);
+        if (status != 200) {
+            throw new IllegalStateException("GET /posts answered " + status + ": " + body);
+        }
+        Matcher matcher = ID.matcher(body);
+        List<Long> ids = new ArrayList<>();
+        while (matcher.find()) {
+            ids.add(Long.parseLong(matcher.group(1)));
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static Connection closeQuietly(Connection connection) {
+        if (connection != null) {
+            connection.close();
+        }
+        return null;
+    }
+
+    private static void print(String name, LatencyHistogram latency, long seconds) {
+        System.out.printf(Locale.ROOT, "%-6s %9.0f req/s  p50 %8.1f us  p99 %8.1f us  p999 %8.1f us  max %9.1f us%n",
+                name, (double) latency.getCount() / seconds, latency.getP50Micros(), latency.getP99Micros(),
+                latency.getP999Micros(), latency.getMaxMicros());
+    }
+
+    /**
+     * A persistent HTTP/1.1 connection sending one request at a time. Much lighter than
+     * {@code java.net.http.HttpClient}, so on a shared machine the measured latency is
+     * the server's rather than the client's.
+     */
+    private static final class Connection implements AutoCloseable {
+
+        private final Socket socket;
+        private final OutputStream out;
+        private final InputStream in;
+        private final String host;
+        private byte[] body = new byte[8192];
+        private int bodyLength;
+
+        Connection(String host, int port) throws IOException {
+            this.socket = new Socket(host, port);
+            socket.setTcpNoDelay(true);
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.host = host + ":" + port;
+        }
+
+        /**
+         * Sends a request and reads the whole response.
+         *
+         * @return the status code
+         */
+        int send(String method, String path, String json) throws IOException {
+            byte[] content = json == null ? null : json.getBytes(StandardCharsets.UTF_8);
+            StringBuilder request = new StringBuilder(128)
+                    .append(method).append(' ').append(path).append(" HTTP/1.1\r\nHost: ").append(host).append("\r\n");
+            if (content != null) {
+                request.append("Content-Type: application/json\r\nContent-Length: ").append(content.length).append("\r\n");
+            }
+            out.write(request.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1));
+            if (content != null) {
+                out.write(content);
+            }
+            out.flush();
+
+            String statusLine = readLine();
+            if (statusLine.length() < 12) {
+                throw new IOException("Invalid status line: " + statusLine);
+            }
+            int status = Integer.parseInt(statusLine.substring(9, 12));
+            int length = 0;
+            for (String header = readLine(); !header.isEmpty(); header = readLine()) {
+                if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    length = Integer.parseInt(header.substring(15).trim());
+                }
+            }
+            if (length > body.length) {
+                body = new byte[Math.max(length, 2 * body.length)];
+            }
+            bodyLength = in.readNBytes(body, 0, length);
+            if (bodyLength < length) {
+                throw new EOFException("The connection was closed during the response.");
+            }
+            return status;
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder(64);
+            int c;
+            while ((c = in.read()) != '\n') {
+                if (c < 0) {
+                    throw new EOFException("The connection was closed during the response.");
+                }
+                if (c != '\r') {
+                    line.append((char) c);
+                }
+            }
+            return line.toString();
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing left to release.
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package blog.benchmark;
+
+import blog.model.Post;
+import blog.model.PostNotFoundException;
+import blog.model.PostRepository;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the hash-indexed title and author lookups of PostRepository with the
+ * linear equalsIgnoreCase scans they replaced.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexedLookupBenchmark {
+
+    private static final int AUTHORS = 1000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private List<Post> posts;
+    private PostRepository repository;
+
+    /**
+     * Builds the plain list and the indexed repository from the same posts.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        posts = BenchmarkData.posts(size, AUTHORS);
+        repository = new PostRepository(posts);
+    }
+
+    @Benchmark
+    public Post scanByTitle() {
+        String title = randomTitle();
+        return posts.stream()
+                .filter(post -> post.getTitle().equalsIgnoreCase(title))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Resolves a title through the index; modifying the content is the cheapest
+     * public operation that performs exactly one title lookup.
+     */
+    @Benchmark
+    public void indexedByTitle() throws PostNotFoundException {
+        repository.modifyPost(randomTitle(), "", PostRepository.ModificationType.CONTENT);
+    }
+
+    @Benchmark
+    public List<Post> scanByAuthor() {
+        String author = randomAuthor();
+        return posts.stream()
+                .filter(post -> post.getAuthor().equalsIgnoreCase(author))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Post> indexedByAuthor() {
+        return repository.getPostsByAuthor(randomAuthor());
+    }
+
+    private String randomTitle() {
+        return BenchmarkData.title(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    private String randomAuthor() {
+        return BenchmarkData.author(ThreadLocalRandom.current().nextInt(AUTHORS));
+    }
+}
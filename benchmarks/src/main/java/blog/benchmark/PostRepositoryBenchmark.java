@@ -0,0 +1,118 @@
+package blog.benchmark;
+
+import blog.model.Post;
+import blog.model.PostNotFoundException;
+import blog.model.PostRepository;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the public PostRepository operations across dataset sizes and author
+ * cardinalities. Read operations are additionally measured with several threads
+ * sharing one repository.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostRepositoryBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"10", "10000"})
+    public int authors;
+
+    private PostRepository repository;
+
+    /**
+     * Builds a repository with the configured number of posts.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new PostRepository(BenchmarkData.posts(size, authors));
+    }
+
+    @Benchmark
+    public List<Post> getallPosts() {
+        return repository.getallPosts();
+    }
+
+    @Benchmark
+    public List<Post> getPostsByAuthor() {
+        return repository.getPostsByAuthor(randomAuthor());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Post> getPostsByAuthorThreads4() {
+        return repository.getPostsByAuthor(randomAuthor());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Post> getallPostsThreads4() {
+        return repository.getallPosts();
+    }
+
+    /**
+     * Adds a post and deletes it again, so the dataset size stays constant.
+     */
+    @Benchmark
+    public void addPost() throws PostNotFoundException {
+        repository.addPost(new Post("Nowy post", "Nowy autor", "Nowa treść"));
+        repository.deletePost("Nowy post");
+    }
+
+    /**
+     * Deletes a random existing post and adds it back at the end.
+     */
+    @Benchmark
+    public void deletePost() throws PostNotFoundException {
+        int i = ThreadLocalRandom.current().nextInt(size);
+        repository.deletePost(BenchmarkData.title(i));
+        repository.addPost(BenchmarkData.post(i, authors));
+    }
+
+    @Benchmark
+    public void modifyPostContent() throws PostNotFoundException {
+        repository.modifyPost(randomTitle(), "Zmieniona treść", PostRepository.ModificationType.CONTENT);
+    }
+
+    /**
+     * Renames a random post and renames it back, so titles stay resolvable.
+     */
+    @Benchmark
+    public void modifyPostTitle() throws PostNotFoundException {
+        String title = randomTitle();
+        repository.modifyPost(title, "Zmieniony tytuł", PostRepository.ModificationType.TITLE);
+        repository.modifyPost("Zmieniony tytuł", title, PostRepository.ModificationType.TITLE);
+    }
+
+    private String randomTitle() {
+        return BenchmarkData.title(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    private String randomAuthor() {
+        return BenchmarkData.author(ThreadLocalRandom.current().nextInt(authors));
+    }
+}
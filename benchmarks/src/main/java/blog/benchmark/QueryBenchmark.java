@@ -0,0 +1,84 @@
+package blog.benchmark;
+
+import blog.model.Post;
+import blog.model.PostQuery;
+import blog.model.PostRepository;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares PostRepository.query with the hand-written sequential streams over all
+ * posts it replaces, for a filter the planner answers from the author index and for
+ * one it has to scan.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+
+    private static final int AUTHORS = 1000;
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private PostRepository repository;
+
+    /**
+     * Builds the repository.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new PostRepository(BenchmarkData.posts(size, AUTHORS));
+    }
+
+    @Benchmark
+    public List<Post> streamAuthorAndTitle() {
+        String author = randomAuthor();
+        return repository.getallPosts().stream()
+                .filter(post -> post.getAuthor().equalsIgnoreCase(author))
+                .filter(post -> post.getTitle().regionMatches(true, 0, "Post 1", 0, 6))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Post> queryAuthorAndTitle() {
+        return repository.query(PostQuery.author(randomAuthor()).and(PostQuery.titleStartsWith("Post 1")));
+    }
+
+    @Benchmark
+    public List<Post> streamTitleAndContent() {
+        return repository.getallPosts().stream()
+                .filter(post -> post.getTitle().regionMatches(true, 0, "Post 12", 0, 7))
+                .filter(post -> post.getContent().contains("numer 12"))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Post> queryTitleAndContent() {
+        return repository.query(PostQuery.titleStartsWith("Post 12").and(PostQuery.contentContains("numer 12")));
+    }
+
+    private String randomAuthor() {
+        return BenchmarkData.author(ThreadLocalRandom.current().nextInt(AUTHORS));
+    }
+}
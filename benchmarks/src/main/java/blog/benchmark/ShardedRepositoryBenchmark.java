@@ -0,0 +1,118 @@
+package blog.benchmark;
+
+import blog.model.Post;
+import blog.model.PostNotFoundException;
+import blog.model.PostRepository;
+import blog.model.ShardedPostRepository;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mixed load on a ShardedPostRepository: writer threads add, rename and delete posts of
+ * random authors while reader threads look up authors and one thread runs filters over
+ * all posts. With {@code shards=1} every write queues for the same lock, which is the
+ * baseline the sharded runs are compared against.
+ *
+ * To see how throughput scales with cores, vary the thread counts with JMH's group
+ * distribution option, e.g. {@code -tg 1,1,1}, {@code -tg 4,4,1}, {@code -tg 8,8,1}.
+ *
+ * After every iteration the shards are checked for consistency and the run fails if
+ * the post count, the merged post list and the author lookups disagree.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShardedRepositoryBenchmark {
+
+    @Param({"100000"})
+    public int size;
+
+    @Param({"1000"})
+    public int authors;
+
+    @Param({"1", "8"})
+    public int shards;
+
+    private ShardedPostRepository repository;
+    private final AtomicInteger nextPost = new AtomicInteger();
+
+    /**
+     * Builds a sharded repository with the configured number of posts.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new ShardedPostRepository(shards, ForkJoinPool.commonPool());
+        repository.addPosts(BenchmarkData.posts(size, authors));
+        nextPost.set(size);
+    }
+
+    /**
+     * Verifies that every post is listed and reachable through its author exactly once.
+     */
+    @TearDown(Level.Iteration)
+    public void verify() {
+        int indexed = 0;
+        for (int i = 0; i < authors; i++) {
+            indexed += repository.getPostsByAuthor(BenchmarkData.author(i)).size();
+        }
+        int count = repository.getPostCount();
+        int listed = repository.getallPosts().size();
+        if (indexed != count || listed != count) {
+            throw new IllegalStateException("Inconsistent repository: count=" + count
+                    + ", listed=" + listed + ", indexed=" + indexed);
+        }
+    }
+
+    /**
+     * Adds a post of a random author, renames it and deletes it again, so the dataset
+     * size stays constant.
+     */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public void write() throws PostNotFoundException {
+        int i = nextPost.getAndIncrement();
+        Post post = repository.addPost(new Post(BenchmarkData.title(i),
+                BenchmarkData.author(ThreadLocalRandom.current().nextInt(authors)), "Treść posta numer " + i + "."));
+        repository.modifyPost(post.getId(), post.getTitle() + " (zmieniony)", PostRepository.ModificationType.TITLE);
+        repository.deletePost(post.getId());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public List<Post> readByAuthor() {
+        return repository.getPostsByAuthor(BenchmarkData.author(ThreadLocalRandom.current().nextInt(authors)));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public long countMatching() {
+        return repository.countPosts(post -> post.getTitle().endsWith("7"));
+    }
+}
@@ -0,0 +1,235 @@
+package blog.benchmark;
+
+import blog.metrics.LatencyHistogram;
+import blog.metrics.MetricRegistry;
+import blog.model.Post;
+import blog.model.PostBatch;
+import blog.model.PostNotFoundException;
+import blog.model.PostQuery;
+import blog.model.PostRepository;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a workload trace against an in-memory {@link PostRepository} at a fixed rate
+ * and reports the throughput and the latency percentiles of every kind of operation.
+ *
+ * The operations are those behind the views: posts are added as by the add view,
+ * deleted by title as by the delete view, and modified as by the modify view, which
+ * looks the post up by title and applies the change as a {@link PostBatch}; reads list
+ * the posts of an author. The trace is generated with Zipfian skew of authors and titles
+ * ({@link WorkloadTrace#generate}) or read from a file, and can be saved for later runs.
+ *
+ * The driver is open-loop: operation i is due at {@code i / rate} seconds after the
+ * start, whether or not the earlier ones have completed, and its latency is measured
+ * from that due time. A stall of the repository therefore shows up in the latency of
+ * every operation that had to wait for it, as it would for users, instead of merely
+ * delaying the next request. The time spent executing alone is reported as service
+ * time. Without a rate the operations run back to back and both times are equal.
+ *
+ * With several threads, operations on the same post may overtake each other, e.g. a
+ * modification its post's deletion; such operations are counted as not found. A single
+ * thread replays a trace exactly.
+ *
+ * Options, all optional:
+ * <pre>
+ * --ops=200000       operations to generate
+ * --posts=100000     initial posts
+ * --authors=1000     distinct authors
+ * --theta=0.99       Zipfian skew of authors and titles, 0 for uniform
+ * --mix=add:10,delete:5,modifyTitle:5,modifyContent:10,read:70
+ * --seed=42          seed of the generated trace
+ * --trace=file       replay this trace instead of generating one
+ * --record=file      save the trace that is run
+ * --rate=20000       operations per second; 0 runs them back to back
+ * --threads=4        worker threads
+ * --warmup=20000     leading operations run at the rate but not measured
+ * </pre>
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public final class WorkloadDriver {
+
+    /**
+     * A parked thread wakes up tens of microseconds late, which would be counted as
+     * latency; the last stretch before an operation is due is therefore yielded away.
+     */
+    private static final long SPIN_NANOS = 100_000;
+
+    private WorkloadDriver() {}
+
+    /**
+     * Runs the workload and prints the report.
+     *
+     * @param args the options
+     * @throws Exception if the trace cannot be read or written
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (arg.startsWith("--") && equals > 2) {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        WorkloadTrace trace = options.containsKey("trace")
+                ? WorkloadTrace.read(Path.of(options.get("trace")))
+                : WorkloadTrace.generate(
+                        Integer.parseInt(options.getOrDefault("ops", "200000")),
+                        Integer.parseInt(options.getOrDefault("posts", "100000")),
+                        Integer.parseInt(options.getOrDefault("authors", "1000")),
+                        Double.parseDouble(options.getOrDefault("theta", "0.99")),
+                        parseMix(options.getOrDefault("mix", "add:10,delete:5,modifyTitle:5,modifyContent:10,read:70")),
+                        Long.parseLong(options.getOrDefault("seed", "42")));
+        if (options.containsKey("record")) {
+            trace.write(Path.of(options.get("record")));
+        }
+        double rate = Double.parseDouble(options.getOrDefault("rate", "20000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "4"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "20000"));
+
+        PostRepository repository = new PostRepository(trace.initialPosts());
+        System.out.printf(Locale.ROOT, "%d posts by %d authors (theta %.2f), %d operations %s, %s, %d threads%n",
+                trace.posts(), trace.authors(), trace.theta(), trace.operations().size(), trace.counts(),
+                rate > 0 ? String.format(Locale.ROOT, "%.0f ops/s", rate) : "unthrottled", threads);
+        Result result = run(repository, trace.operations(), rate, threads, warmup);
+        result.print();
+        repository.close();
+    }
+
+    /**
+     * Runs the operations on the repository.
+     *
+     * @param repository the repository
+     * @param operations the operations
+     * @param rate the operations per second, or 0 to run them back to back
+     * @param threads the number of worker threads
+     * @param warmup the number of leading operations not measured
+     * @return the measured latencies
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    static Result run(PostRepository repository, List<WorkloadTrace.Operation> operations, double rate, int threads,
+            int warmup) throws InterruptedException {
+        Result result = new Result();
+        AtomicInteger next = new AtomicInteger();
+        double interval = rate > 0 ? 1e9 / rate : 0;
+        long begin = System.nanoTime();
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofPlatform().name("workload-" + t).start(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < operations.size()) {
+                    long due = begin + (long) (i * interval);
+                    long now;
+                    while ((now = System.nanoTime()) < due) {
+                        if (due - now > SPIN_NANOS) {
+                            LockSupport.parkNanos(due - now - SPIN_NANOS);
+                        } else {
+                            Thread.yield();
+                        }
+                    }
+                    WorkloadTrace.Operation operation = operations.get(i);
+                    long start = System.nanoTime();
+                    if (i == warmup) {
+                        result.measuredFrom = interval > 0 ? due : start;
+                    }
+                    try {
+                        execute(repository, operation);
+                    } catch (PostNotFoundException e) {
+                        if (i >= warmup) {
+                            result.notFound.increment();
+                        }
+                    }
+                    long end = System.nanoTime();
+                    if (i >= warmup) {
+                        result.service.record(end - start);
+                        result.byKind.get(operation.kind()).record(end - (interval > 0 ? due : start));
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        result.elapsedNanos = System.nanoTime() - (warmup > 0 && warmup < operations.size() ? result.measuredFrom : begin);
+        return result;
+    }
+
+    /**
+     * Executes one operation as the corresponding view does.
+     */
+    private static void execute(PostRepository repository, WorkloadTrace.Operation operation) throws PostNotFoundException {
+        switch (operation.kind()) {
+            case ADD -> repository.addPost(new Post(operation.title(), operation.author(), operation.value()));
+            case DELETE -> repository.deletePost(operation.title());
+            case READ -> repository.getPostsByAuthor(operation.author());
+            case MODIFY_TITLE, MODIFY_CONTENT -> {
+                List<Post> matches = repository.query(PostQuery.title(operation.title()));
+                if (matches.isEmpty()) {
+                    throw new PostNotFoundException("Post '" + operation.title() + "' not found.");
+                }
+                long id = matches.get(0).getId();
+                repository.update(operation.kind() == WorkloadTrace.Kind.MODIFY_TITLE
+                        ? new PostBatch().modifyTitle(id, operation.value())
+                        : new PostBatch().modifyContent(id, operation.value()));
+            }
+        }
+    }
+
+    private static Map<WorkloadTrace.Kind, Integer> parseMix(String mix) {
+        Map<WorkloadTrace.Kind, Integer> weights = new EnumMap<>(WorkloadTrace.Kind.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.split(":");
+            String name = pair[0].trim().replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT);
+            weights.put(WorkloadTrace.Kind.valueOf(name), Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+
+    /**
+     * The latencies of one run: per kind of operation measured from the due time, and
+     * the service time of all operations.
+     */
+    static final class Result {
+
+        private final MetricRegistry metrics = new MetricRegistry();
+        final Map<WorkloadTrace.Kind, LatencyHistogram> byKind = new EnumMap<>(WorkloadTrace.Kind.class);
+        final LatencyHistogram service = metrics.histogram("workload.service");
+        final LongAdder notFound = new LongAdder();
+        volatile long measuredFrom;
+        long elapsedNanos;
+
+        Result() {
+            for (WorkloadTrace.Kind kind : WorkloadTrace.Kind.values()) {
+                byKind.put(kind, metrics.histogram("workload." + kind.name().toLowerCase(Locale.ROOT)));
+            }
+        }
+
+        void print() {
+            long count = service.getCount();
+            System.out.printf(Locale.ROOT, "%d operations in %.2f s: %.0f ops/s, %d not found%n",
+                    count, elapsedNanos / 1e9, count / (elapsedNanos / 1e9), notFound.sum());
+            System.out.printf(Locale.ROOT, "%-15s %9s %10s %10s %10s %10s%n", "latency (us)", "count", "p50", "p99", "p999", "max");
+            for (Map.Entry<WorkloadTrace.Kind, LatencyHistogram> entry : byKind.entrySet()) {
+                print(entry.getKey().name().toLowerCase(Locale.ROOT), entry.getValue());
+            }
+            print("service time", service);
+        }
+
+        private static void print(String name, LatencyHistogram latency) {
+            if (latency.getCount() > 0) {
+                System.out.printf(Locale.ROOT, "%-15s %9d %10.1f %10.1f %10.1f %10.1f%n", name, latency.getCount(),
+                        latency.getP50Micros(), latency.getP99Micros(), latency.getP999Micros(), latency.getMaxMicros());
+            }
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package blog.benchmark;
+
+import blog.model.Post;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * A sequence of repository operations, as issued by the add, delete and modify views and
+ * the author search of the menu, together with the posts the repository holds before
+ * the first operation.
+ *
+ * Traces are generated with Zipfian skew or read from a file written by
+ * {@link #write(Path)}. The file starts with a header line
+ * {@code #workload posts=<n> authors=<n> theta=<skew> seed=<seed>} describing the
+ * initial posts, followed by one operation per line, its fields separated by tabs:
+ * <pre>
+ * ADD            title  author  content
+ * DELETE         title
+ * MODIFY_TITLE   title  new title
+ * MODIFY_CONTENT title  new content
+ * READ           author
+ * </pre>
+ * Backslashes, tabs and line breaks in the fields are escaped as {@code \\}, {@code \t},
+ * {@code \n} and {@code \r}. Posts are addressed by title, as the views do, so a trace
+ * can be replayed against any repository set up from the same header.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+final class WorkloadTrace {
+
+    /**
+     * The kind of an operation.
+     */
+    enum Kind {
+        ADD, DELETE, MODIFY_TITLE, MODIFY_CONTENT, READ
+    }
+
+    /**
+     * One operation.
+     *
+     * @param kind what the operation does
+     * @param title the title of the added, deleted or modified post; null for reads
+     * @param author the author of the added post or the searched author; null otherwise
+     * @param value the content of the added post or the new title or content; null otherwise
+     */
+    record Operation(Kind kind, String title, String author, String value) {}
+
+    private static final String HEADER = "#workload";
+
+    private final int posts;
+    private final int authors;
+    private final double theta;
+    private final long seed;
+    private final List<Operation> operations;
+
+    private WorkloadTrace(int posts, int authors, double theta, long seed, List<Operation> operations) {
+        this.posts = posts;
+        this.authors = authors;
+        this.theta = theta;
+        this.seed = seed;
+        this.operations = operations;
+    }
+
+    /**
+     * Generates a trace starting from the {@link #initialPosts() initial posts}, with
+     * authors drawn from the Zipfian distribution over
+     * {@link BenchmarkData#author(int) authors}. Every operation picks its
+     * kind by the weights of the mix; added posts and searches pick their author with the
+     * same skew, deletions and modifications pick among the current posts with the
+     * most recently added or retitled ones the most likely.
+     *
+     * @param count the number of operations
+     * @param posts the number of initial posts
+     * @param authors the number of distinct authors
+     * @param theta the Zipfian skew of authors and titles, 0 for uniform
+     * @param mix the relative weight of every kind of operation
+     * @param seed the seed; equal arguments generate equal traces
+     * @return the trace
+     */
+    static WorkloadTrace generate(int count, int posts, int authors, double theta, Map<Kind, Integer> mix, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        ZipfianGenerator authorRanks = new ZipfianGenerator(authors, theta);
+        ZipfianGenerator titleRanks = new ZipfianGenerator(Math.max(posts, 1), theta);
+        int[] cumulative = new int[Kind.values().length];
+        int total = 0;
+        for (Kind kind : Kind.values()) {
+            total += mix.getOrDefault(kind, 0);
+            cumulative[kind.ordinal()] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The operation mix is empty.");
+        }
+
+        List<String> live = new ArrayList<>(posts);
+        for (int i = 0; i < posts; i++) {
+            live.add(BenchmarkData.title(i));
+        }
+        int nextTitle = posts;
+        List<Operation> operations = new ArrayList<>(count);
+        while (operations.size() < count) {
+            int pick = random.nextInt(total);
+            Kind kind = Kind.ADD;
+            while (cumulative[kind.ordinal()] <= pick) {
+                kind = Kind.values()[kind.ordinal() + 1];
+            }
+            if (live.isEmpty() && kind != Kind.ADD && kind != Kind.READ) {
+                kind = Kind.ADD;
+            }
+            String author = BenchmarkData.author((int) authorRanks.next(random));
+            switch (kind) {
+                case ADD -> {
+                    String title = BenchmarkData.title(nextTitle);
+                    live.add(title);
+                    operations.add(new Operation(kind, title, author, content(nextTitle++)));
+                }
+                case READ -> operations.add(new Operation(kind, null, author, null));
+                default -> {
+                    int index = live.size() - 1 - (int) (titleRanks.next(random) % live.size());
+                    String title = live.get(index);
+                    if (kind == Kind.DELETE) {
+                        live.remove(index);
+                        operations.add(new Operation(kind, title, null, null));
+                    } else if (kind == Kind.MODIFY_TITLE) {
+                        String newTitle = BenchmarkData.title(nextTitle++);
+                        live.remove(index);
+                        live.add(newTitle);
+                        operations.add(new Operation(kind, title, null, newTitle));
+                    } else {
+                        operations.add(new Operation(kind, title, null, content(nextTitle++)));
+                    }
+                }
+            }
+        }
+        return new WorkloadTrace(posts, authors, theta, seed, operations);
+    }
+
+    /**
+     * Reads a trace written by {@link #write(Path)}.
+     *
+     * @param file the trace file
+     * @return the trace
+     * @throws IOException if the file cannot be read or is not a trace
+     */
+    static WorkloadTrace read(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null || !header.startsWith(HEADER)) {
+                throw new IOException(file + " is not a workload trace.");
+            }
+            Map<String, String> settings = new HashMap<>();
+            for (String setting : header.substring(HEADER.length()).trim().split("\\s+")) {
+                int equals = setting.indexOf('=');
+                if (equals > 0) {
+                    settings.put(setting.substring(0, equals), setting.substring(equals + 1));
+                }
+            }
+            List<Operation> operations = new ArrayList<>();
+            String line;
+            int number = 1;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.isEmpty()) {
+                    continue;
+                }
+                operations.add(parse(line, file, number));
+            }
+            try {
+                return new WorkloadTrace(Integer.parseInt(settings.getOrDefault("posts", "0")),
+                        Integer.parseInt(settings.getOrDefault("authors", "1")),
+                        Double.parseDouble(settings.getOrDefault("theta", "0")),
+                        Long.parseLong(settings.getOrDefault("seed", "0")), operations);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid header of " + file + ": " + header, e);
+            }
+        }
+    }
+
+    /**
+     * Writes the trace.
+     *
+     * @param file the trace file
+     * @throws IOException if the file cannot be written
+     */
+    void write(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(String.format(Locale.ROOT, "%s posts=%d authors=%d theta=%s seed=%d%n",
+                    HEADER, posts, authors, theta, seed));
+            for (Operation operation : operations) {
+                writer.write(operation.kind().name());
+                switch (operation.kind()) {
+                    case ADD -> writeFields(writer, operation.title(), operation.author(), operation.value());
+                    case DELETE -> writeFields(writer, operation.title());
+                    case READ -> writeFields(writer, operation.author());
+                    default -> writeFields(writer, operation.title(), operation.value());
+                }
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Returns the number of posts the repository holds before the first operation.
+     *
+     * @return the initial post count
+     */
+    int posts() {
+        return posts;
+    }
+
+    /**
+     * Returns the number of distinct authors of the initial posts.
+     *
+     * @return the author count
+     */
+    int authors() {
+        return authors;
+    }
+
+    /**
+     * Returns the Zipfian skew of the initial posts' authors.
+     *
+     * @return theta
+     */
+    double theta() {
+        return theta;
+    }
+
+    /**
+     * Returns the seed of the initial posts' authors.
+     *
+     * @return the seed
+     */
+    long seed() {
+        return seed;
+    }
+
+    /**
+     * Generates the posts the repository holds before the first operation: titled
+     * {@code Post 0} to {@code Post <posts - 1>}, their authors drawn with the skew of
+     * the trace.
+     *
+     * @return the initial posts
+     */
+    List<Post> initialPosts() {
+        SplittableRandom random = new SplittableRandom(~seed);
+        ZipfianGenerator authorRanks = new ZipfianGenerator(authors, theta);
+        List<Post> initial = new ArrayList<>(posts);
+        for (int i = 0; i < posts; i++) {
+            initial.add(new Post(BenchmarkData.title(i), BenchmarkData.author((int) authorRanks.next(random)), content(i)));
+        }
+        return initial;
+    }
+
+    /**
+     * Returns the operations, in order.
+     *
+     * @return the operations
+     */
+    List<Operation> operations() {
+        return operations;
+    }
+
+    /**
+     * Counts the operations of every kind.
+     *
+     * @return the number of operations per kind
+     */
+    Map<Kind, Integer> counts() {
+        Map<Kind, Integer> counts = new EnumMap<>(Kind.class);
+        for (Operation operation : operations) {
+            counts.merge(operation.kind(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static String content(int i) {
+        return "Treść posta numer " + i + ". Lorem ipsum dolor sit amet.";
+    }
+
+    private static Operation parse(String line, Path file, int number) throws IOException {
+        String[] fields = line.split("\t", -1);
+        try {
+            Kind kind = Kind.valueOf(fields[0]);
+            return switch (kind) {
+                case ADD -> new Operation(kind, unescape(fields[1]), unescape(fields[2]), unescape(fields[3]));
+                case DELETE -> new Operation(kind, unescape(fields[1]), null, null);
+                case READ -> new Operation(kind, null, unescape(fields[1]), null);
+                default -> new Operation(kind, unescape(fields[1]), null, unescape(fields[2]));
+            };
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Invalid operation in line " + number + " of " + file + ": " + line, e);
+        }
+    }
+
+    private static void writeFields(BufferedWriter writer, String... fields) throws IOException {
+        for (String field : fields) {
+            writer.write('\t');
+            writer.write(escape(field));
+        }
+    }
+
+    private static String escape(String field) {
+        StringBuilder escaped = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case '\t' -> escaped.append("\\t");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String unescape(String field) {
+        if (field.indexOf('\\') < 0) {
+            return field;
+        }
+        StringBuilder unescaped = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c != '\\' || i + 1 == field.length()) {
+                unescaped.append(c);
+                continue;
+            }
+            char escaped = field.charAt(++i);
+            switch (escaped) {
+                case 't' -> unescaped.append('\t');
+                case 'n' -> unescaped.append('\n');
+                case 'r' -> unescaped.append('\r');
+                default -> unescaped.append(escaped);
+            }
+        }
+        return unescaped.toString();
+    }
+}
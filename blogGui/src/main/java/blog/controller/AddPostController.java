@@ -5,8 +5,8 @@
 
 package blog.controller;
 
+import blog.model.AsyncPostRepository;
 import blog.model.Post;
-import blog.model.PostRepository;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.TableColumn;
@@ -14,14 +14,9 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.control.Button;
-import javafx.beans.property.SimpleStringProperty;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Tooltip;
 
 import java.io.IOException;
-import java.util.List;
 
 /**
  * Controller for the Add Post view, handling post creation and adding it to the repository.
@@ -29,28 +24,19 @@ import java.util.List;
  * @version 1
  * @author marcelkuczek
  */
-public class AddPostController {
+public class AddPostController implements ViewManager.ManagedView {
 
-    private MenuController menuController;
-    private PostRepository repository;
+    private ViewManager viewManager;
 
     /**
-     * Sets the repository for accessing post data and loads existing posts.
+     * Sets the view manager used for navigation and binds the table view to the shared posts.
      *
-     * @param repository the PostRepository instance
+     * @param viewManager the ViewManager owning this view
      */
-    public void setRepository(PostRepository repository) {
-        this.repository = repository;
-        loadPosts();
-    }
-
-    /**
-     * Sets the MenuController reference to enable post refresh in the main menu.
-     *
-     * @param menuController the MenuController instance
-     */
-    public void setMenuController(MenuController menuController) {
-        this.menuController = menuController;
+    @Override
+    public void setViewManager(ViewManager viewManager) {
+        this.viewManager = viewManager;
+        postsTableView.setItems(viewManager.getPosts());
     }
 
     @FXML
@@ -84,9 +70,12 @@ public class AddPostController {
      */
     @FXML
     public void initialize() {
-        titleColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getTitle()));
-        authorColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getAuthor()));
-        contentColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getContent()));
+        titleColumn.setCellFactory(column -> new PostTableCell(Post::getTitle));
+        authorColumn.setCellFactory(column -> new PostTableCell(Post::getAuthor));
+        contentColumn.setCellFactory(column -> new PostTableCell(Post::getContentPreview));
+        titleColumn.setSortable(false);
+        authorColumn.setSortable(false);
+        contentColumn.setSortable(false);
         
         addPostButton.setTooltip(new Tooltip("Add post (Alt+A)"));
         closeWindowButton.setTooltip(new Tooltip("Close window (Alt+C)"));
@@ -101,32 +90,50 @@ public class AddPostController {
     }
 
     /**
-     * Loads posts from the repository into the table view.
+     * Clears the form every time the view is shown again.
      */
-    private void loadPosts() {
-        List<Post> posts = repository.getallPosts();
-        postsTableView.getItems().clear();
-        postsTableView.getItems().addAll(posts);
+    @Override
+    public void onShow() {
+        titleField.clear();
+        authorField.clear();
+        contentArea.clear();
     }
 
     /**
      * Adds a new post to the repository and returns to the menu view if all fields are filled.
-     * Shows an alert if any field is left empty.
+     * Shows an alert if any field is left empty. The post is added off the FX thread.
      */
     @FXML
     private void addPost() {
-        String title = titleField.getText();
-        String author = authorField.getText();
-        String content = contentArea.getText();
-
-        if (!title.isEmpty() && !author.isEmpty() && !content.isEmpty()) {
-            Post newPost = new Post(title, author, content);
-            repository.addPost(newPost);
-            showAlert("Post added successfully.");
-            menuController.refreshPosts();
-            returnToMenu();
-        } else {
-            showAlert("All fields must be filled.");
+        viewManager.getProfiler().beginInteraction("Add post", true);
+        UiProfiler.Scope scope = viewManager.getProfiler().enter("AddPostController.addPost");
+        try {
+            String title = titleField.getText();
+            String author = authorField.getText();
+            String content = contentArea.getText();
+
+            if (!title.isEmpty() && !author.isEmpty() && !content.isEmpty()) {
+                Post newPost = new Post(title, author, content);
+                viewManager.getAsyncRepository().addPost(newPost).whenCompleteAsync((ignored, error) -> {
+                    UiProfiler.Scope completion = viewManager.getProfiler().enter("AddPostController.addPost completion");
+                    try {
+                        if (error != null) {
+                            viewManager.getProfiler().finishInteraction();
+                            showAlert(AsyncPostRepository.messageOf(error));
+                        } else {
+                            showAlert("Post added successfully.");
+                            returnToMenu();
+                        }
+                    } finally {
+                        completion.close();
+                    }
+                }, viewManager.getDispatcher());
+            } else {
+                viewManager.getProfiler().finishInteraction();
+                showAlert("All fields must be filled.");
+            }
+        } finally {
+            scope.close();
         }
     }
 
@@ -135,26 +142,27 @@ public class AddPostController {
      */
     @FXML
     private void cancel() {
-        returnToMenu();
+        viewManager.getProfiler().beginInteraction("Cancel add post", false);
+        UiProfiler.Scope scope = viewManager.getProfiler().enter("AddPostController.cancel");
+        try {
+            returnToMenu();
+        } finally {
+            scope.close();
+        }
     }
 
     /**
-     * Returns to the main menu view, reloading the post list from the repository.
+     * Returns to the main menu view.
      */
     private void returnToMenu() {
+        UiProfiler.Scope scope = viewManager.getProfiler().enter("AddPostController.returnToMenu");
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/FXML/MenuView.fxml"));
-            Parent root = loader.load();
-
-            MenuController menuController = loader.getController();
-            menuController.setRepository(repository);
-            menuController.refreshPosts();
-            
-            Scene scene = titleField.getScene();
-            scene.setRoot(root);
+            viewManager.show(ViewManager.View.MENU);
         } catch (IOException e) {
             e.printStackTrace();
             showAlert("Error loading the menu view.");
+        } finally {
+            scope.close();
         }
     }
 
@@ -0,0 +1,161 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.controller;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Label;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.stage.Popup;
+import javafx.stage.Stage;
+
+/**
+ * Debug overlay showing the measurements of a {@link UiProfiler} on top of the main window.
+ *
+ * The overlay is toggled with F12. It shows a chart of the recent layout pass
+ * durations, frame interval statistics, the latest FX-thread stalls and the latest
+ * interactions with their breakdown; slow interactions are marked. The profiler only
+ * measures while the overlay is visible.
+ *
+ * @version 1
+ * @author marcelkuczek
+ */
+public class DebugHud {
+
+    private static final double WIDTH = 420;
+    private static final double CHART_HEIGHT = 60;
+    private static final double CHART_SCALE_MILLIS = 33.3;
+    private static final double FRAME_BUDGET_MILLIS = 16.7;
+    private static final int SHOWN_RECORDS = 5;
+
+    private final Stage stage;
+    private final UiProfiler profiler;
+    private final Popup popup = new Popup();
+    private final Canvas chart = new Canvas(WIDTH, CHART_HEIGHT);
+    private final Label frames = new Label();
+    private final Label stalls = new Label();
+    private final Label interactions = new Label();
+
+    /**
+     * Creates the overlay for the given window and binds F12 in its scene to toggle it.
+     *
+     * @param stage the main window; its scene must be set
+     * @param profiler the profiler of the window's scene
+     */
+    public DebugHud(Stage stage, UiProfiler profiler) {
+        this.stage = stage;
+        this.profiler = profiler;
+        VBox content = new VBox(4, chart, frames, stalls, interactions);
+        content.setPrefWidth(WIDTH + 16);
+        content.setMouseTransparent(true);
+        content.setStyle("-fx-background-color: rgba(0, 0, 0, 0.8); -fx-padding: 8;");
+        for (Label label : List.of(frames, stalls, interactions)) {
+            label.setStyle("-fx-text-fill: white; -fx-font-family: monospace; -fx-font-size: 11px;");
+            label.setWrapText(true);
+            label.setMaxWidth(WIDTH);
+        }
+        popup.getContent().add(content);
+        popup.setAutoHide(false);
+        profiler.setOnUpdate(this::refresh);
+        stage.getScene().getAccelerators().put(new KeyCodeCombination(KeyCode.F12), this::toggle);
+    }
+
+    /**
+     * Shows the overlay if it is hidden and hides it otherwise.
+     */
+    public void toggle() {
+        if (popup.isShowing()) {
+            hide();
+        } else {
+            show();
+        }
+    }
+
+    /**
+     * Shows the overlay in the top right corner of the window and starts measuring.
+     */
+    public void show() {
+        profiler.setEnabled(true);
+        popup.show(stage, stage.getX() + stage.getWidth() - WIDTH - 40, stage.getY() + 40);
+        refresh();
+    }
+
+    /**
+     * Hides the overlay and stops measuring.
+     */
+    public void hide() {
+        popup.hide();
+        profiler.setEnabled(false);
+    }
+
+    private void refresh() {
+        if (!popup.isShowing()) {
+            return;
+        }
+        popup.setX(stage.getX() + stage.getWidth() - WIDTH - 40);
+        popup.setY(stage.getY() + 40);
+        double[] pulses = profiler.getPulseHistory();
+        drawChart(pulses);
+
+        double[] intervals = profiler.getFrameIntervalHistory();
+        double maxPulse = 0;
+        for (double pulse : pulses) {
+            maxPulse = Math.max(maxPulse, pulse);
+        }
+        double maxInterval = 0;
+        for (double interval : intervals) {
+            maxInterval = Math.max(maxInterval, interval);
+        }
+        frames.setText(String.format(Locale.ROOT,
+                "Layout pass: last %.1f ms, max %.1f ms | Longest frame interval: %.0f ms (%d pulses)",
+                pulses.length == 0 ? 0 : pulses[pulses.length - 1], maxPulse, maxInterval, pulses.length));
+
+        List<UiProfiler.Stall> recentStalls = profiler.getStalls();
+        StringBuilder stallText = new StringBuilder("FX-thread stalls: ").append(recentStalls.size());
+        SimpleDateFormat time = new SimpleDateFormat("HH:mm:ss");
+        for (UiProfiler.Stall stall : recentStalls.subList(0, Math.min(SHOWN_RECORDS, recentStalls.size()))) {
+            stallText.append(String.format(Locale.ROOT, "%n  %s %.0f ms in %s",
+                    time.format(new Date(stall.timestamp())), stall.millis(), stall.activity()));
+        }
+        stalls.setText(stallText.toString());
+
+        List<UiProfiler.InteractionRecord> recent = profiler.getInteractions();
+        StringBuilder interactionText = new StringBuilder("Interactions:");
+        for (UiProfiler.InteractionRecord record : recent.subList(0, Math.min(SHOWN_RECORDS, recent.size()))) {
+            interactionText.append("\n").append(record.isSlow() ? "SLOW " : "  ")
+                    .append(String.format(Locale.ROOT, "%s %.1f ms", record.name(), record.totalMillis()));
+            if (record.note() != null) {
+                interactionText.append(" (").append(record.note()).append(')');
+            }
+            if (record.isSlow()) {
+                record.breakdown().forEach((part, millis) -> interactionText.append(
+                        String.format(Locale.ROOT, "%n      %-40s %8.1f ms", part, millis)));
+            }
+        }
+        interactions.setText(interactionText.toString());
+    }
+
+    private void drawChart(double[] pulses) {
+        GraphicsContext graphics = chart.getGraphicsContext2D();
+        graphics.clearRect(0, 0, WIDTH, CHART_HEIGHT);
+        double barWidth = WIDTH / 240;
+        for (int i = 0; i < pulses.length; i++) {
+            double height = Math.min(1, pulses[i] / CHART_SCALE_MILLIS) * CHART_HEIGHT;
+            graphics.setFill(pulses[i] > FRAME_BUDGET_MILLIS ? Color.ORANGERED : Color.LIMEGREEN);
+            graphics.fillRect(i * barWidth, CHART_HEIGHT - height, Math.max(1, barWidth - 0.5), height);
+        }
+        double budget = CHART_HEIGHT - FRAME_BUDGET_MILLIS / CHART_SCALE_MILLIS * CHART_HEIGHT;
+        graphics.setStroke(Color.GRAY);
+        graphics.strokeLine(0, budget, WIDTH, budget);
+    }
+}
@@ -5,21 +5,16 @@
 
 package blog.controller;
 
+import blog.model.AsyncPostRepository;
 import blog.model.Post;
-import blog.model.PostRepository;
-import blog.model.PostNotFoundException;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.Button;
-import javafx.beans.property.SimpleStringProperty;
 import java.io.IOException;
-import java.util.List;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
+import java.util.concurrent.CompletableFuture;
 import javafx.scene.control.Tooltip;
 
 /**
@@ -28,18 +23,19 @@ import javafx.scene.control.Tooltip;
  * @version 1
  * @author marcelkuczek
  */
-public class DeletePostController {
+public class DeletePostController implements ViewManager.ManagedView {
 
-    private PostRepository repository;
+    private ViewManager viewManager;
 
     /**
-     * Sets the repository for accessing post data and loads existing posts.
+     * Sets the view manager used for navigation and binds the table view to the shared posts.
      *
-     * @param repository the PostRepository instance
+     * @param viewManager the ViewManager owning this view
      */
-    public void setRepository(PostRepository repository) {
-        this.repository = repository;
-        loadPosts();
+    @Override
+    public void setViewManager(ViewManager viewManager) {
+        this.viewManager = viewManager;
+        postsTableView.setItems(viewManager.getPosts());
     }
 
     @FXML
@@ -70,9 +66,12 @@ public class DeletePostController {
      */
     @FXML
     public void initialize() {
-        titleColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getTitle()));
-        authorColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getAuthor()));
-        contentColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getContent()));
+        titleColumn.setCellFactory(column -> new PostTableCell(Post::getTitle));
+        authorColumn.setCellFactory(column -> new PostTableCell(Post::getAuthor));
+        contentColumn.setCellFactory(column -> new PostTableCell(Post::getContentPreview));
+        titleColumn.setSortable(false);
+        authorColumn.setSortable(false);
+        contentColumn.setSortable(false);
 
         deletePostButton.setTooltip(new Tooltip("Delete selected post (Alt+D)"));
         closeWindowButton.setTooltip(new Tooltip("Close window (Alt+C)"));
@@ -84,34 +83,60 @@ public class DeletePostController {
         deletePostButton.setText("_Delete");
         closeWindowButton.setMnemonicParsing(true);
         closeWindowButton.setText("_Close");
+
+        postsTableView.getSelectionModel().selectedItemProperty().addListener((observable, oldPost, post) -> {
+            if (post != null) {
+                titleField.setText(post.getTitle());
+            }
+        });
     }
 
     /**
-     * Loads posts from the repository into the table view.
+     * Clears the form every time the view is shown again.
      */
-    private void loadPosts() {
-        List<Post> posts = repository.getallPosts();
-        postsTableView.getItems().clear();
-        postsTableView.getItems().addAll(posts);
+    @Override
+    public void onShow() {
+        postsTableView.getSelectionModel().clearSelection();
+        titleField.clear();
     }
 
     /**
-     * Deletes the selected post from the repository based on the title entered.
+     * Deletes the post selected in the table, identified by its id, or the first post
+     * with the entered title if the title was typed instead. The post is deleted off
+     * the FX thread.
      */
     @FXML
     private void deletePost() {
-        String titleToDelete = titleField.getText().trim();
-        if (titleToDelete.isEmpty()) {
-            showAlert("Please enter a title to delete.");
-            return;
+        viewManager.getProfiler().beginInteraction("Delete post", true);
+        UiProfiler.Scope scope = viewManager.getProfiler().enter("DeletePostController.deletePost");
+        try {
+            String titleToDelete = titleField.getText().trim();
+            if (titleToDelete.isEmpty()) {
+                viewManager.getProfiler().finishInteraction();
+                showAlert("Please enter a title to delete.");
+                return;
+            }
+
+            Post selected = postsTableView.getSelectionModel().getSelectedItem();
+            CompletableFuture<Void> deletion = selected != null && selected.getTitle().equals(titleToDelete)
+                    ? viewManager.getAsyncRepository().deletePost(selected.getId())
+                    : viewManager.getAsyncRepository().deletePost(titleToDelete);
+            deletion.whenCompleteAsync((ignored, error) -> {
+                UiProfiler.Scope completion = viewManager.getProfiler().enter("DeletePostController.deletePost completion");
+                try {
+                    if (error != null) {
+                        viewManager.getProfiler().finishInteraction();
+                        showAlert(AsyncPostRepository.messageOf(error));
+                    } else {
+                        returnToMenu();
+                    }
+                } finally {
+                    completion.close();
+                }
+            }, viewManager.getDispatcher());
+        } finally {
+            scope.close();
         }
-
-       try {
-        repository.deletePost(titleToDelete);
-        returnToMenu();
-    } catch (PostNotFoundException e) {
-        showAlert(e.getMessage());
-    }
     }
 
     /**
@@ -119,26 +144,27 @@ public class DeletePostController {
      */
     @FXML
     private void cancel() {
-        returnToMenu();
+        viewManager.getProfiler().beginInteraction("Cancel delete post", false);
+        UiProfiler.Scope scope = viewManager.getProfiler().enter("DeletePostController.cancel");
+        try {
+            returnToMenu();
+        } finally {
+            scope.close();
+        }
     }
 
     /**
-     * Returns to the main menu view, reloading the post list from the repository.
+     * Returns to the main menu view.
      */
     private void returnToMenu() {
+        UiProfiler.Scope scope = viewManager.getProfiler().enter("DeletePostController.returnToMenu");
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/FXML/MenuView.fxml"));
-            Parent root = loader.load();
-
-            MenuController menuController = loader.getController();
-            menuController.setRepository(repository);
-            menuController.refreshPosts();
-
-            Scene scene = titleField.getScene();
-            scene.setRoot(root);
+            viewManager.show(ViewManager.View.MENU);
         } catch (IOException e) {
             e.printStackTrace();
             showAlert("Error loading the menu view.");
+        } finally {
+            scope.close();
         }
     }
 
@@ -0,0 +1,54 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.controller;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javafx.application.Platform;
+
+/**
+ * Executor that runs tasks on the JavaFX Application Thread in batches.
+ *
+ * Tasks submitted from background threads are queued, and a single
+ * {@link Platform#runLater(Runnable)} drains everything that queued up until it runs.
+ * Many completions arriving together therefore cost one hand-off to the FX thread
+ * instead of one each. Tasks submitted on the FX thread itself run immediately.
+ *
+ * @version 1
+ * @author marcelkuczek
+ */
+public class FxBatchDispatcher implements Executor {
+
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Runs the task on the FX thread, batched with the other pending tasks.
+     *
+     * @param task the task to run
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (Platform.isFxApplicationThread() && pending.isEmpty()) {
+            task.run();
+            return;
+        }
+        pending.add(task);
+        if (scheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drain);
+        }
+    }
+
+    private void drain() {
+        scheduled.set(false);
+        Runnable task;
+        while ((task = pending.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -5,22 +5,25 @@
 
 package blog.controller;
 
+import blog.model.AsyncPostRepository;
 import blog.model.Post;
-import blog.model.PostRepository;
+import blog.model.PostExporter;
+import blog.model.PostImporter;
 import javafx.fxml.FXML;
-import javafx.beans.property.SimpleStringProperty;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Tooltip;
 import javafx.scene.control.Button;
+import javafx.scene.control.TextField;
+import javafx.scene.control.ProgressBar;
+import javafx.collections.FXCollections;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.event.ActionEvent;
+import java.io.File;
 import java.io.IOException;
-import java.util.List;
+import java.util.concurrent.CancellationException;
 
 /**
  * Controller for the main menu, managing post display, addition, deletion, and modification actions.
@@ -28,18 +31,34 @@ import java.util.List;
  * @version 1
  * @author marcelkuczek
  */
-public class MenuController {
+public class MenuController implements ViewManager.ManagedView {
     
-    private PostRepository repository;
+    private static final int MAX_SEARCH_RESULTS = 200;
+
+    private ViewManager viewManager;
+    private volatile boolean exportCancelled;
 
     /**
-     * Sets the repository for post data and initializes the table view with posts.
+     * Sets the view manager used for navigation and binds the table view to the shared posts.
      *
-     * @param repository the PostRepository instance
+     * @param viewManager the ViewManager owning this view
+     */
+    @Override
+    public void setViewManager(ViewManager viewManager) {
+        this.viewManager = viewManager;
+        postsTableView.setItems(viewManager.getPosts());
+    }
+
+    /**
+     * Called when the menu is shown again. The shared post list is already up to date;
+     * an active search is re-run so its results reflect the latest changes.
      */
-    public void setRepository(PostRepository repository) {
-        this.repository = repository;
-        loadPosts();
+    @Override
+    public void onShow() {
+        postsTableView.getSelectionModel().clearSelection();
+        if (!searchField.getText().isBlank()) {
+            searchPosts();
+        }
     }
 
     @FXML
@@ -57,25 +76,43 @@ public class MenuController {
     @FXML
     private Button modifyPostButton;
     @FXML
+    private Button importPostsButton;
+    @FXML
+    private Button exportPostsButton;
+    @FXML
+    private Button cancelExportButton;
+    @FXML
     private Button exitAppButton;
+    @FXML
+    private TextField searchField;
+    @FXML
+    private ProgressBar progressBar;
 
     /**
      * Initializes the table columns, button tooltips, accessibility texts, and mnemonics.
      */
     @FXML
     public void initialize() {
-        titleColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getTitle()));
-        authorColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getAuthor()));
-        contentColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getContent()));
+        titleColumn.setCellFactory(column -> new PostTableCell(Post::getTitle));
+        authorColumn.setCellFactory(column -> new PostTableCell(Post::getAuthor));
+        contentColumn.setCellFactory(column -> new PostTableCell(Post::getContentPreview));
+        titleColumn.setSortable(false);
+        authorColumn.setSortable(false);
+        contentColumn.setSortable(false);
         
         addPostButton.setTooltip(new Tooltip("Add a new post (Alt+A)"));
         deletePostButton.setTooltip(new Tooltip("Delete selected post (Alt+D)"));
         modifyPostButton.setTooltip(new Tooltip("Modify selected post (Alt+M)"));
+        importPostsButton.setTooltip(new Tooltip("Import posts from a JSONL or CSV file (Alt+I)"));
+        exportPostsButton.setTooltip(new Tooltip("Export all posts to a JSONL or CSV file (Alt+X)"));
         exitAppButton.setTooltip(new Tooltip("Exit application (Alt+E)"));
 
         addPostButton.setAccessibleText("Add a new post");
         deletePostButton.setAccessibleText("Delete selected post");
         modifyPostButton.setAccessibleText("Modify selected post");
+        importPostsButton.setAccessibleText("Import posts from a file");
+        exportPostsButton.setAccessibleText("Export posts to a file");
+        cancelExportButton.setAccessibleText("Cancel the running export");
         exitAppButton.setAccessibleText("Exit application");
 
         addPostButton.setMnemonicParsing(true);
@@ -84,28 +121,48 @@ public class MenuController {
         deletePostButton.setText("_Delete");
         modifyPostButton.setMnemonicParsing(true);
         modifyPostButton.setText("_Modify");
+        importPostsButton.setMnemonicParsing(true);
+        importPostsButton.setText("_Import");
+        exportPostsButton.setMnemonicParsing(true);
+        exportPostsButton.setText("E_xport");
         exitAppButton.setMnemonicParsing(true);
         exitAppButton.setText("_Exit");
-    }
 
-    /**
-     * Refreshes the posts displayed in the table view by reloading from the repository.
-     */
-    public void refreshPosts() {
-        loadPosts();
+        searchField.setTooltip(new Tooltip("Search titles and contents, press Enter to search"));
+        searchField.setAccessibleText("Search posts");
+        searchField.textProperty().addListener((observable, oldText, newText) -> {
+            if (newText.isBlank()) {
+                postsTableView.setItems(viewManager.getPosts());
+            }
+        });
     }
 
     /**
-     * Loads posts from the repository into the table view.
+     * Searches the posts for the entered terms and phrases and shows the best matches in
+     * the table. An empty query shows all posts again.
      */
-    private void loadPosts() {
-        if (repository != null) {
-            List<Post> posts = repository.getallPosts();
-            postsTableView.getItems().clear();
-            postsTableView.getItems().addAll(posts);
-        } else {
-            showAlert("Repository is not initialized.");
+    @FXML
+    private void searchPosts() {
+        viewManager.getProfiler().beginInteraction("Search", true);
+        String query = searchField.getText();
+        if (query.isBlank()) {
+            viewManager.getProfiler().finishInteraction();
+            postsTableView.setItems(viewManager.getPosts());
+            return;
         }
+        viewManager.getAsyncRepository()
+                .submit(() -> viewManager.getSearchIndex().search(query, MAX_SEARCH_RESULTS))
+                .thenAcceptAsync(results -> {
+                    UiProfiler.Scope completion = viewManager.getProfiler().enter("MenuController.searchPosts completion");
+                    try {
+                        if (query.equals(searchField.getText())) {
+                            postsTableView.setItems(FXCollections.observableArrayList(results));
+                        }
+                        viewManager.getProfiler().finishInteraction();
+                    } finally {
+                        completion.close();
+                    }
+                }, viewManager.getDispatcher());
     }
 
     /**
@@ -115,19 +172,15 @@ public class MenuController {
      */
     @FXML
     private void addPost(ActionEvent event) {
+        viewManager.getProfiler().beginInteraction("Open add post", false);
+        UiProfiler.Scope scope = viewManager.getProfiler().enter("MenuController.addPost");
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/FXML/AddPostView.fxml"));
-            Parent root = loader.load();
-
-            AddPostController addPostController = loader.getController();
-            addPostController.setRepository(this.repository);
-            addPostController.setMenuController(this);
-
-            Scene scene = ((javafx.scene.Node) event.getSource()).getScene();
-            scene.setRoot(root);
+            viewManager.show(ViewManager.View.ADD_POST);
         } catch (IOException e) {
             e.printStackTrace();
             showAlert("Error opening the post addition form.");
+        } finally {
+            scope.close();
         }
     }
 
@@ -138,18 +191,15 @@ public class MenuController {
      */
     @FXML
     private void deletePost(ActionEvent event) {
+        viewManager.getProfiler().beginInteraction("Open delete post", false);
+        UiProfiler.Scope scope = viewManager.getProfiler().enter("MenuController.deletePost");
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/FXML/DeletePostView.fxml"));
-            Parent root = loader.load();
-
-            DeletePostController deletePostController = loader.getController();
-            deletePostController.setRepository(this.repository);
-
-            Scene scene = ((javafx.scene.Node) event.getSource()).getScene();
-            scene.setRoot(root);
+            viewManager.show(ViewManager.View.DELETE_POST);
         } catch (IOException e) {
             e.printStackTrace();
             showAlert("Error opening the delete post form.");
+        } finally {
+            scope.close();
         }
     }
 
@@ -160,19 +210,100 @@ public class MenuController {
      */
     @FXML
     private void modifyPost(ActionEvent event) {
+        viewManager.getProfiler().beginInteraction("Open modify post", false);
+        UiProfiler.Scope scope = viewManager.getProfiler().enter("MenuController.modifyPost");
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/FXML/ModifyPostView.fxml"));
-            Parent root = loader.load();
-
-            ModifyPostController modifyPostController = loader.getController();
-            modifyPostController.setRepository(this.repository);
-
-            Scene scene = ((javafx.scene.Node) event.getSource()).getScene();
-            scene.setRoot(root);
+            viewManager.show(ViewManager.View.MODIFY_POST);
         } catch (IOException e) {
             e.printStackTrace();
             showAlert("Error opening the modify post form.");
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Lets the user pick a JSONL or CSV file and imports its posts in the background,
+     * showing the progress below the menu. Invalid records are skipped and reported.
+     *
+     * @param event the ActionEvent triggered by the Import button
+     */
+    @FXML
+    private void importPosts(ActionEvent event) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Posts");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Post files", "*.jsonl", "*.json", "*.csv"),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+        File file = chooser.showOpenDialog(postsTableView.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        importPostsButton.setDisable(true);
+        progressBar.setProgress(0);
+        progressBar.setVisible(true);
+        viewManager.getAsyncRepository()
+                .submit(() -> PostImporter.importFile(viewManager.getRepository(), file.toPath(),
+                        progress -> viewManager.getDispatcher().execute(() -> progressBar.setProgress(progress))))
+                .whenCompleteAsync((result, error) -> {
+                    importPostsButton.setDisable(false);
+                    progressBar.setVisible(false);
+                    if (error != null) {
+                        showAlert("Import failed: " + AsyncPostRepository.messageOf(error));
+                    } else {
+                        showAlert("Imported " + result.getImported() + " posts, skipped "
+                                + result.getRejected() + " records with empty fields or invalid format.");
+                    }
+                }, viewManager.getDispatcher());
+    }
+
+    /**
+     * Lets the user pick a destination file and exports all posts in the background,
+     * showing the progress below the menu. The export can be cancelled while it runs.
+     *
+     * @param event the ActionEvent triggered by the Export button
+     */
+    @FXML
+    private void exportPosts(ActionEvent event) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Posts");
+        chooser.setInitialFileName("posts.jsonl");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl"),
+                new FileChooser.ExtensionFilter("CSV", "*.csv"));
+        File file = chooser.showSaveDialog(postsTableView.getScene().getWindow());
+        if (file == null) {
+            return;
         }
+        exportCancelled = false;
+        exportPostsButton.setDisable(true);
+        cancelExportButton.setVisible(true);
+        progressBar.setProgress(0);
+        progressBar.setVisible(true);
+        viewManager.getAsyncRepository()
+                .submit(() -> PostExporter.exportFile(viewManager.getRepository(), file.toPath(),
+                        progress -> viewManager.getDispatcher().execute(() -> progressBar.setProgress(progress)),
+                        () -> exportCancelled))
+                .whenCompleteAsync((exported, error) -> {
+                    exportPostsButton.setDisable(false);
+                    cancelExportButton.setVisible(false);
+                    progressBar.setVisible(false);
+                    if (error instanceof CancellationException || error != null && error.getCause() instanceof CancellationException) {
+                        showAlert("Export cancelled.");
+                    } else if (error != null) {
+                        showAlert("Export failed: " + AsyncPostRepository.messageOf(error));
+                    } else {
+                        showAlert("Exported " + exported + " posts to " + file.getName() + ".");
+                    }
+                }, viewManager.getDispatcher());
+    }
+
+    /**
+     * Cancels the running export; the partially written file is discarded.
+     */
+    @FXML
+    private void cancelExport() {
+        exportCancelled = true;
     }
 
     /**
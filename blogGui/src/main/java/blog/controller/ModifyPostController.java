@@ -5,19 +5,18 @@
 
 package blog.controller;
 
+import blog.model.AsyncPostRepository;
 import blog.model.Post;
+import blog.model.PostBatch;
 import blog.model.PostNotFoundException;
-import blog.model.PostRepository;
+import blog.model.PostQuery;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import java.io.IOException;
-import java.util.List;
-import javafx.beans.property.SimpleStringProperty;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javafx.scene.control.Button;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
@@ -29,9 +28,9 @@ import javafx.scene.control.Tooltip;
  * @version 1
  * @author marcelkuczek
  */
-public class ModifyPostController {
+public class ModifyPostController implements ViewManager.ManagedView {
 
-    private PostRepository repository;
+    private ViewManager viewManager;
 
     @FXML
     private Button modifyPostButton;
@@ -61,13 +60,14 @@ public class ModifyPostController {
     private TableColumn<Post, String> contentColumn;
 
     /**
-     * Sets the repository for accessing post data.
+     * Sets the view manager used for navigation and binds the table view to the shared posts.
      *
-     * @param repository the PostRepository instance
+     * @param viewManager the ViewManager owning this view
      */
-    public void setRepository(PostRepository repository) {
-        this.repository = repository;
-        loadPosts();
+    @Override
+    public void setViewManager(ViewManager viewManager) {
+        this.viewManager = viewManager;
+        postsTableView.setItems(viewManager.getPosts());
     }
 
     /**
@@ -75,9 +75,12 @@ public class ModifyPostController {
      */
     @FXML
     public void initialize() {
-        titleColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getTitle()));
-        authorColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getAuthor()));
-        contentColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getContent()));
+        titleColumn.setCellFactory(column -> new PostTableCell(Post::getTitle));
+        authorColumn.setCellFactory(column -> new PostTableCell(Post::getAuthor));
+        contentColumn.setCellFactory(column -> new PostTableCell(Post::getContentPreview));
+        titleColumn.setSortable(false);
+        authorColumn.setSortable(false);
+        contentColumn.setSortable(false);
 
         modifyPostButton.setTooltip(new Tooltip("Modify selected post (Alt+D)"));
         closeWindowButton.setTooltip(new Tooltip("Close window (Alt+C)"));
@@ -89,51 +92,94 @@ public class ModifyPostController {
         modifyPostButton.setText("_Modify");
         closeWindowButton.setMnemonicParsing(true);
         closeWindowButton.setText("_Close");
+
+        postsTableView.getSelectionModel().selectedItemProperty().addListener((observable, oldPost, post) -> {
+            if (post != null) {
+                titleField.setText(post.getTitle());
+            }
+        });
     }
 
     /**
-     * Loads posts from the repository into the table view.
+     * Clears the form every time the view is shown again.
      */
-    private void loadPosts() {
-        List<Post> posts = repository.getallPosts(); 
-        postsTableView.getItems().clear(); 
-        postsTableView.getItems().addAll(posts);
+    @Override
+    public void onShow() {
+        postsTableView.getSelectionModel().clearSelection();
+        titleField.clear();
+        newTitleTextField.clear();
+        newContentTextArea.clear();
     }
 
     /**
      * Modifies the selected post based on the provided new title and content.
+     * A post selected in the table is identified by its id, a typed title by the first
+     * post with that title. The title and the content are changed together as one
+     * batch off the FX thread, so the post is never seen half-updated.
      */
     @FXML
     private void modifyPost() {
-        String currentTitle = titleField.getText().trim();
-        String newTitle = newTitleTextField.getText().trim();
-        String newContent = newContentTextArea.getText().trim();
-
-        if (currentTitle.isEmpty()) {
-            showAlert("Please enter the current title of the post to modify.");
-            return;
-        }
-
+        viewManager.getProfiler().beginInteraction("Modify post", true);
+        UiProfiler.Scope scope = viewManager.getProfiler().enter("ModifyPostController.modifyPost");
         try {
-            if (!newTitle.isEmpty()) {
-                repository.modifyPost(currentTitle, newTitle, PostRepository.ModificationType.TITLE);
-                showAlert("Post's title updated successfully.");
-                currentTitle = newTitle;
-            }
-
-            if (!newContent.isEmpty()) {
-                repository.modifyPost(currentTitle, newContent, PostRepository.ModificationType.CONTENT);
-                showAlert("Post's content updated successfully.");
+            String currentTitle = titleField.getText().trim();
+            String newTitle = newTitleTextField.getText().trim();
+            String newContent = newContentTextArea.getText().trim();
+
+            if (currentTitle.isEmpty()) {
+                viewManager.getProfiler().finishInteraction();
+                showAlert("Please enter the current title of the post to modify.");
+                return;
             }
 
             if (newTitle.isEmpty() && newContent.isEmpty()) {
+                viewManager.getProfiler().finishInteraction();
                 showAlert("No changes were made.");
+                returnToMenu();
+                return;
             }
-        } catch (PostNotFoundException e) {
-            showAlert(e.getMessage());
-        }
 
-        returnToMenu();
+            AsyncPostRepository repository = viewManager.getAsyncRepository();
+            FxBatchDispatcher dispatcher = viewManager.getDispatcher();
+            Post selected = postsTableView.getSelectionModel().getSelectedItem();
+            CompletableFuture<Long> target;
+            if (selected != null && selected.getTitle().equals(currentTitle)) {
+                target = CompletableFuture.completedFuture(selected.getId());
+            } else {
+                target = repository.query(PostQuery.title(currentTitle)).thenApply(matches -> {
+                    if (matches.isEmpty()) {
+                        throw new CompletionException(new PostNotFoundException("Post '" + currentTitle + "' not found."));
+                    }
+                    return matches.get(0).getId();
+                });
+            }
+
+            target.thenCompose(id -> {
+                PostBatch batch = new PostBatch();
+                if (!newTitle.isEmpty()) {
+                    batch.modifyTitle(id, newTitle);
+                }
+                if (!newContent.isEmpty()) {
+                    batch.modifyContent(id, newContent);
+                }
+                return repository.update(batch);
+            }).whenCompleteAsync((ignored, error) -> {
+                UiProfiler.Scope completion = viewManager.getProfiler().enter("ModifyPostController.modifyPost completion");
+                try {
+                    if (error != null) {
+                        viewManager.getProfiler().finishInteraction();
+                        showAlert(AsyncPostRepository.messageOf(error));
+                    } else {
+                        showAlert("Post updated successfully.");
+                    }
+                    returnToMenu();
+                } finally {
+                    completion.close();
+                }
+            }, dispatcher);
+        } finally {
+            scope.close();
+        }
     }
 
     /**
@@ -141,26 +187,27 @@ public class ModifyPostController {
      */
     @FXML
     private void cancel() {
-        returnToMenu();
+        viewManager.getProfiler().beginInteraction("Cancel modify post", false);
+        UiProfiler.Scope scope = viewManager.getProfiler().enter("ModifyPostController.cancel");
+        try {
+            returnToMenu();
+        } finally {
+            scope.close();
+        }
     }
 
     /**
-     * Returns to the main menu view, reloading the post list from the repository.
+     * Returns to the main menu view.
      */
     private void returnToMenu() {
+        UiProfiler.Scope scope = viewManager.getProfiler().enter("ModifyPostController.returnToMenu");
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/FXML/MenuView.fxml"));
-            Parent root = loader.load();
-
-            MenuController menuController = loader.getController();
-            menuController.setRepository(repository);
-            menuController.refreshPosts();
-
-            Scene scene = titleField.getScene();
-            scene.setRoot(root);
+            viewManager.show(ViewManager.View.MENU);
         } catch (IOException e) {
             e.printStackTrace();
             showAlert("Error loading the menu view.");
+        } finally {
+            scope.close();
         }
     }
 
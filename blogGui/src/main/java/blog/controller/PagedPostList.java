@@ -0,0 +1,123 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.controller;
+
+import blog.metrics.LatencyHistogram;
+import blog.metrics.MetricRegistry;
+import blog.model.PersistentPostList;
+import blog.model.Post;
+import blog.model.PostChangeEvent;
+import blog.model.PostChangeListener;
+import blog.model.PostRepository;
+import java.util.concurrent.Executor;
+import javafx.collections.ObservableListBase;
+
+/**
+ * Read-only observable list of posts backed by an immutable snapshot of the
+ * repository. Taking a snapshot costs O(1) and reading a post from it O(log n), so a
+ * TableView backed by this list only ever touches the visible rows, no matter how
+ * many posts the repository holds.
+ *
+ * The list follows the repository's change events and reports each of them as a
+ * single-element change, so a table never has to reload after one edit. Changes made
+ * on other threads are handed to the FX thread through the given executor. Every event
+ * carries the snapshot taken right after its change, which the list switches to when
+ * applying it, so the rows always match the changes reported so far even while the
+ * repository is already ahead.
+ *
+ * Applied changes are timed in the default {@link MetricRegistry},
+ * including the work of the bound tables.
+ *
+ * @version 1
+ * @author marcelkuczek
+ */
+public class PagedPostList extends ObservableListBase<Post> implements PostChangeListener {
+
+    private static final LatencyHistogram APPLY = MetricRegistry.getDefault().histogram("table.applyChange");
+
+    private final PostRepository repository;
+    private final Executor fxExecutor;
+    private PersistentPostList snapshot;
+
+    /**
+     * Creates a list over the posts of the given repository.
+     *
+     * @param repository the PostRepository to read pages from
+     * @param fxExecutor the executor that runs tasks on the FX thread
+     */
+    public PagedPostList(PostRepository repository, Executor fxExecutor) {
+        this.repository = repository;
+        this.fxExecutor = fxExecutor;
+        this.snapshot = repository.getallPosts();
+        repository.addPostChangeListener(this);
+    }
+
+    /**
+     * Stops following the repository. Must be called once the list is no longer shown.
+     */
+    public void dispose() {
+        repository.removePostChangeListener(this);
+    }
+
+    /**
+     * Hands a repository change over to the FX thread.
+     *
+     * @param event the repository change
+     */
+    @Override
+    public void postChanged(PostChangeEvent event) {
+        fxExecutor.execute(() -> apply(event));
+    }
+
+    /**
+     * Applies a repository change to the list and forwards it to the list's listeners.
+     *
+     * @param event the repository change
+     */
+    private void apply(PostChangeEvent event) {
+        long start = System.nanoTime();
+        snapshot = event.getSnapshot();
+        beginChange();
+        if (event.getType() == PostChangeEvent.Type.BATCH_UPDATED) {
+            event.getChanges().forEach(this::nextChange);
+        } else {
+            nextChange(event);
+        }
+        endChange();
+        APPLY.recordSince(start);
+    }
+
+    /**
+     * Records a single change within the current list change.
+     *
+     * @param event the repository change
+     */
+    private void nextChange(PostChangeEvent event) {
+        int index = event.getIndex();
+        switch (event.getType()) {
+            case ADDED -> nextAdd(index, index + 1);
+            case BATCH_ADDED -> nextAdd(index, index + event.getPosts().size());
+            case REMOVED -> nextRemove(index, event.getPost());
+            default -> nextSet(index, event.getPrevious());
+        }
+    }
+
+    /**
+     * Returns the post at the given index of the current snapshot.
+     *
+     * @param index the index of the post
+     * @return the post at that index
+     */
+    @Override
+    public Post get(int index) {
+        return snapshot.get(index);
+    }
+
+    @Override
+    public int size() {
+        return snapshot.size();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.controller;
+
+import blog.model.Post;
+import java.util.function.Function;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableRow;
+
+/**
+ * Table cell that displays one field of the post in its row.
+ *
+ * The cell reads the field straight from the row's post, so the column needs no cell
+ * value factory and no property object is created per cell update. A modification
+ * replaces the post with a modified copy, which {@link PagedPostList} reports as a
+ * single replaced element; the table then updates the row at that index, so its cells
+ * read the field from the new post.
+ *
+ * @version 1
+ * @author marcelkuczek
+ */
+public class PostTableCell extends TableCell<Post, String> {
+
+    private final Function<Post, String> field;
+
+    /**
+     * Creates a cell showing the given field.
+     *
+     * @param field reads the displayed text from a post, e.g. {@code Post::getTitle};
+     *              should return a stored value rather than build a new string
+     */
+    public PostTableCell(Function<Post, String> field) {
+        this.field = field;
+    }
+
+    @Override
+    protected void updateItem(String item, boolean empty) {
+        super.updateItem(item, empty);
+        TableRow<Post> row = getTableRow();
+        Post post = empty || row == null ? null : row.getItem();
+        setText(post == null ? null : field.apply(post));
+    }
+}
@@ -0,0 +1,436 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.controller;
+
+import blog.metrics.LatencyHistogram;
+import blog.metrics.MetricRegistry;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+
+/**
+ * Measures how responsive the user interface is, for the {@link DebugHud}.
+ *
+ * The profiler tracks three things while it is enabled:
+ * <ul>
+ * <li>the duration of the CSS and layout pass of every pulse of the main scene and the
+ * interval between pulses, kept as a rolling history;</li>
+ * <li>FX-thread stalls, detected by a watchdog thread whose heartbeats reach the FX
+ * thread late, together with the controller method that was running at the time;</li>
+ * <li>interactions: the time from a button action until the table showing the result
+ * was laid out, broken down into the controller methods that ran on the FX thread,
+ * the layout passes and everything else (background work and rendering).</li>
+ * </ul>
+ * Controllers mark their handlers with {@link #beginInteraction(String, boolean)} and
+ * {@link #enter(String)}. All methods must be called on the FX thread. When the
+ * profiler is disabled they do nothing and do not allocate.
+ *
+ * @version 1
+ * @author marcelkuczek
+ */
+public class UiProfiler implements AutoCloseable {
+
+    /**
+     * Interactions taking at least this long are flagged as slow.
+     */
+    public static final long SLOW_INTERACTION_MILLIS = 200;
+
+    private static final long STALL_MILLIS = 100;
+    private static final long HEARTBEAT_MILLIS = 50;
+    private static final long INTERACTION_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final int HISTORY = 240;
+    private static final int MAX_RECORDS = 20;
+    private static final String LAYOUT_PASS = "layout pass";
+
+    private static final LatencyHistogram PULSE = MetricRegistry.getDefault().histogram("ui.pulse.layout");
+    private static final LatencyHistogram STALL = MetricRegistry.getDefault().histogram("ui.stall");
+    private static final LatencyHistogram INTERACTION = MetricRegistry.getDefault().histogram("ui.interaction");
+
+    private static final Scope NO_SCOPE = new Scope(null, null);
+
+    private final double[] pulseMillis = new double[HISTORY];
+    private final double[] frameIntervalMillis = new double[HISTORY];
+    private int historyEnd;
+    private int historySize;
+    private long pulseStart;
+    private long lastPulseStart;
+
+    private final Deque<Stall> stalls = new ArrayDeque<>();
+    private final Deque<InteractionRecord> interactions = new ArrayDeque<>();
+    private final Deque<Scope> openScopes = new ArrayDeque<>();
+    private Interaction current;
+
+    private volatile boolean enabled;
+    private volatile String activeScope;
+    private volatile long heartbeatPostedAt;
+    private volatile String stallScope;
+    private ScheduledExecutorService watchdog;
+    private Runnable onUpdate = () -> {};
+    private long lastUpdate;
+
+    /**
+     * Starts following the pulses of the given scene.
+     *
+     * @param scene the main scene of the application
+     */
+    public void attach(Scene scene) {
+        scene.addPreLayoutPulseListener(this::pulseStarted);
+        scene.addPostLayoutPulseListener(this::pulseLaidOut);
+    }
+
+    /**
+     * Turns measuring on or off. The watchdog thread only runs while measuring.
+     * Must be called on the FX thread, like the other methods.
+     *
+     * @param enabled whether to measure
+     */
+    public void setEnabled(boolean enabled) {
+        if (this.enabled == enabled) {
+            return;
+        }
+        this.enabled = enabled;
+        if (enabled) {
+            lastPulseStart = 0;
+            current = null;
+            watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ui-profiler-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+            watchdog.scheduleAtFixedRate(this::watch, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+        } else {
+            watchdog.shutdownNow();
+            watchdog = null;
+            heartbeatPostedAt = 0;
+        }
+    }
+
+    /**
+     * Returns whether the profiler is measuring.
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the callback run on the FX thread a few times per second while the profiler
+     * is enabled, to refresh a display of the measurements.
+     *
+     * @param onUpdate the callback
+     */
+    public void setOnUpdate(Runnable onUpdate) {
+        this.onUpdate = onUpdate;
+    }
+
+    /**
+     * Starts measuring a user action. An interaction that is still open is completed first.
+     *
+     * @param name a short description of the action, e.g. "Add post"
+     * @param awaitTableUpdate true if the interaction ends once the table shows its
+     *                         result; false if it ends with the next laid out pulse
+     */
+    public void beginInteraction(String name, boolean awaitTableUpdate) {
+        if (!enabled) {
+            return;
+        }
+        if (current != null) {
+            complete(System.nanoTime(), "superseded");
+        }
+        current = new Interaction(name, System.nanoTime());
+        current.done = !awaitTableUpdate;
+    }
+
+    /**
+     * Ends the current interaction with the next laid out pulse even though the table
+     * was not updated, e.g. because the action failed.
+     */
+    public void finishInteraction() {
+        if (current != null) {
+            current.done = true;
+        }
+    }
+
+    /**
+     * Reports that the posts shown by the tables changed; the current interaction ends
+     * with the next laid out pulse.
+     */
+    public void tableUpdated() {
+        finishInteraction();
+    }
+
+    /**
+     * Starts timing a controller method. Close the returned scope in a finally block.
+     *
+     * @param method the name of the method, e.g. "AddPostController.addPost"
+     * @return the scope to close when the method returns
+     */
+    public Scope enter(String method) {
+        if (!enabled) {
+            return NO_SCOPE;
+        }
+        Scope scope = new Scope(this, method);
+        scope.topLevel = openScopes.isEmpty();
+        scope.interaction = current;
+        scope.start = System.nanoTime();
+        openScopes.push(scope);
+        activeScope = method;
+        return scope;
+    }
+
+    /**
+     * Returns the durations of the CSS and layout pass of the recent pulses, oldest first.
+     *
+     * @return the durations in milliseconds
+     */
+    public double[] getPulseHistory() {
+        return history(pulseMillis);
+    }
+
+    /**
+     * Returns the intervals between the recent pulses, oldest first.
+     *
+     * @return the intervals in milliseconds
+     */
+    public double[] getFrameIntervalHistory() {
+        return history(frameIntervalMillis);
+    }
+
+    /**
+     * Returns the most recent FX-thread stalls, newest first.
+     *
+     * @return the stalls
+     */
+    public List<Stall> getStalls() {
+        return new ArrayList<>(stalls);
+    }
+
+    /**
+     * Returns the most recent completed interactions, newest first.
+     *
+     * @return the interactions
+     */
+    public List<InteractionRecord> getInteractions() {
+        return new ArrayList<>(interactions);
+    }
+
+    /**
+     * Stops the watchdog thread.
+     */
+    @Override
+    public void close() {
+        setEnabled(false);
+    }
+
+    private void pulseStarted() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (lastPulseStart != 0) {
+            frameIntervalMillis[historyEnd] = (now - lastPulseStart) / 1e6;
+        }
+        lastPulseStart = now;
+        pulseStart = now;
+        activeScope = LAYOUT_PASS;
+    }
+
+    private void pulseLaidOut() {
+        if (!enabled || pulseStart == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long duration = now - pulseStart;
+        pulseStart = 0;
+        activeScope = openScopes.isEmpty() ? null : openScopes.peek().method;
+        PULSE.record(duration);
+        pulseMillis[historyEnd] = duration / 1e6;
+        historyEnd = (historyEnd + 1) % HISTORY;
+        historySize = Math.min(HISTORY, historySize + 1);
+
+        if (current != null) {
+            current.layoutNanos += duration;
+            if (current.done) {
+                complete(now, null);
+            } else if (now - current.start > INTERACTION_TIMEOUT_NANOS) {
+                complete(now, "no table update");
+            }
+        }
+    }
+
+    private void exit(Scope scope) {
+        long elapsed = System.nanoTime() - scope.start;
+        openScopes.remove(scope);
+        activeScope = openScopes.isEmpty() ? null : openScopes.peek().method;
+        Interaction interaction = scope.interaction;
+        if (interaction != null && interaction == current) {
+            interaction.methods.merge(scope.method, elapsed, Long::sum);
+            if (scope.topLevel) {
+                interaction.topLevelNanos += elapsed;
+            }
+        }
+    }
+
+    private void complete(long now, String note) {
+        Interaction interaction = current;
+        current = null;
+        long total = now - interaction.start;
+        INTERACTION.record(total);
+
+        Map<String, Double> breakdown = new LinkedHashMap<>();
+        interaction.methods.forEach((method, nanos) -> breakdown.put(method, nanos / 1e6));
+        breakdown.put(LAYOUT_PASS + "es", interaction.layoutNanos / 1e6);
+        long other = Math.max(0, total - interaction.topLevelNanos - interaction.layoutNanos);
+        breakdown.put("background work and rendering", other / 1e6);
+
+        InteractionRecord record = new InteractionRecord(interaction.name, total / 1e6, breakdown, note);
+        addFirst(interactions, record);
+    }
+
+    /**
+     * Watchdog thread: posts a heartbeat to the FX thread unless one is outstanding, and
+     * notes what the FX thread is busy with when the heartbeat is overdue.
+     */
+    private void watch() {
+        long posted = heartbeatPostedAt;
+        long now = System.nanoTime();
+        if (posted == 0) {
+            heartbeatPostedAt = now;
+            Platform.runLater(this::heartbeat);
+        } else if (stallScope == null && now - posted > TimeUnit.MILLISECONDS.toNanos(STALL_MILLIS)) {
+            String scope = activeScope;
+            stallScope = scope == null ? "event handling or rendering" : scope;
+        }
+    }
+
+    private void heartbeat() {
+        long posted = heartbeatPostedAt;
+        if (posted == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long delay = now - posted;
+        String scope = stallScope;
+        stallScope = null;
+        heartbeatPostedAt = 0;
+        if (delay > TimeUnit.MILLISECONDS.toNanos(STALL_MILLIS)) {
+            STALL.record(delay);
+            addFirst(stalls, new Stall(System.currentTimeMillis(), delay / 1e6,
+                    scope == null ? "event handling or rendering" : scope));
+        }
+        if (now - lastUpdate > TimeUnit.MILLISECONDS.toNanos(250)) {
+            lastUpdate = now;
+            onUpdate.run();
+        }
+    }
+
+    private double[] history(double[] values) {
+        double[] result = new double[historySize];
+        for (int i = 0; i < historySize; i++) {
+            result[i] = values[(historyEnd - historySize + i + HISTORY) % HISTORY];
+        }
+        return result;
+    }
+
+    private static <T> void addFirst(Deque<T> records, T record) {
+        records.addFirst(record);
+        if (records.size() > MAX_RECORDS) {
+            records.removeLast();
+        }
+    }
+
+    /**
+     * A timed controller method; closing it stops the timer.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final UiProfiler profiler;
+        private final String method;
+        private Interaction interaction;
+        private boolean topLevel;
+        private long start;
+
+        private Scope(UiProfiler profiler, String method) {
+            this.profiler = profiler;
+            this.method = method;
+        }
+
+        @Override
+        public void close() {
+            if (profiler != null) {
+                profiler.exit(this);
+            }
+        }
+    }
+
+    /**
+     * A period in which the FX thread did not get to run queued tasks.
+     *
+     * @param timestamp when the stall ended, in epoch milliseconds
+     * @param millis how long queued tasks had to wait
+     * @param activity what the FX thread was doing meanwhile
+     */
+    public record Stall(long timestamp, double millis, String activity) {}
+
+    /**
+     * A completed interaction.
+     *
+     * @param name the action
+     * @param totalMillis the time from the action until its result was laid out
+     * @param breakdown where the time went, in milliseconds; controller methods include
+     *                  the methods they called
+     * @param note why the interaction ended early, or null
+     */
+    public record InteractionRecord(String name, double totalMillis, Map<String, Double> breakdown, String note) {
+
+        /**
+         * Returns whether the interaction took at least {@link #SLOW_INTERACTION_MILLIS}.
+         *
+         * @return true if slow
+         */
+        public boolean isSlow() {
+            return totalMillis >= SLOW_INTERACTION_MILLIS;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(String.format(Locale.ROOT, "%s %.1f ms", name, totalMillis));
+            if (note != null) {
+                text.append(" (").append(note).append(')');
+            }
+            breakdown.forEach((part, millis) -> text.append(String.format(Locale.ROOT, "; %s %.1f ms", part, millis)));
+            return text.toString();
+        }
+    }
+
+    /**
+     * An interaction that is still being measured.
+     */
+    private static final class Interaction {
+
+        private final String name;
+        private final long start;
+        private final Map<String, Long> methods = new LinkedHashMap<>();
+        private long topLevelNanos;
+        private long layoutNanos;
+        private boolean done;
+
+        Interaction(String name, long start) {
+            this.name = name;
+            this.start = start;
+        }
+    }
+}
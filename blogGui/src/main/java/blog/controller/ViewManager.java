@@ -0,0 +1,314 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.controller;
+
+import blog.metrics.MetricRegistry;
+import blog.metrics.StartupTimeline;
+import blog.model.AsyncPostRepository;
+import blog.model.PostRepository;
+import blog.model.Post;
+import blog.model.PostSearchIndex;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import javafx.collections.ListChangeListener;
+import javafx.css.CssParser;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+
+/**
+ * Loads every view of the application once and switches the scene between them.
+ *
+ * Each FXML file is parsed a single time and its root and controller are reused on
+ * every later visit. All tables share one {@link PagedPostList}, so the posts are
+ * followed through one repository listener regardless of how many views exist.
+ *
+ * The manager also owns the asynchronous repository used by the controllers, the
+ * dispatcher that brings its results back to the FX thread and the full-text search
+ * index, which is built in the background.
+ *
+ * The FXML views can be parsed on background threads before the window is shown, see
+ * {@link #preload(Executor)}; they are only attached to the shared post list on the
+ * FX thread, when first shown. The background work is recorded in the
+ * {@link StartupTimeline} given to the constructor.
+ *
+ * FXML loads and view switches are timed in the default {@link MetricRegistry} as
+ * {@code view.load.<VIEW>} and {@code view.show.<VIEW>}. The {@link UiProfiler} of the
+ * scene additionally attributes them to the user interactions that caused them.
+ *
+ * @version 1
+ * @author marcelkuczek
+ */
+public class ViewManager implements AutoCloseable {
+
+    /**
+     * The views of the application and their FXML files.
+     */
+    public enum View {
+        MENU("/FXML/MenuView.fxml"),
+        ADD_POST("/FXML/AddPostView.fxml"),
+        DELETE_POST("/FXML/DeletePostView.fxml"),
+        MODIFY_POST("/FXML/ModifyPostView.fxml");
+
+        private final String fxml;
+
+        View(String fxml) {
+            this.fxml = fxml;
+        }
+    }
+
+    /**
+     * Implemented by the controllers of managed views.
+     */
+    interface ManagedView {
+
+        /**
+         * Called once, right after the view was loaded.
+         *
+         * @param viewManager the manager owning the view
+         */
+        void setViewManager(ViewManager viewManager);
+
+        /**
+         * Called every time the view becomes the root of the scene.
+         */
+        void onShow();
+    }
+
+    private static final String STYLESHEET = "/FXML/style.css";
+
+    private final PostRepository repository;
+    private final AsyncPostRepository asyncRepository;
+    private final FxBatchDispatcher dispatcher = new FxBatchDispatcher();
+    private final PagedPostList posts;
+    private final PostSearchIndex searchIndex;
+    private final UiProfiler profiler = new UiProfiler();
+    private final Map<View, Parent> roots = new EnumMap<>(View.class);
+    private final Map<View, ManagedView> controllers = new EnumMap<>(View.class);
+    private final Map<View, CompletableFuture<FXMLLoader>> pending = new EnumMap<>(View.class);
+    private final StartupTimeline startup;
+    private Scene scene;
+
+    /**
+     * Creates a view manager for the given repository.
+     *
+     * @param repository the PostRepository shown by all views
+     */
+    public ViewManager(PostRepository repository) {
+        this(repository, new StartupTimeline());
+    }
+
+    /**
+     * Creates a view manager for the given repository, recording its background
+     * work in the given startup timeline.
+     *
+     * @param repository the PostRepository shown by all views
+     * @param startup the timeline of the application startup
+     */
+    public ViewManager(PostRepository repository, StartupTimeline startup) {
+        this.repository = repository;
+        this.startup = startup;
+        this.asyncRepository = new AsyncPostRepository(repository);
+        this.posts = new PagedPostList(repository, dispatcher);
+        this.searchIndex = new PostSearchIndex(repository);
+        asyncRepository.submit(() -> {
+            StartupTimeline.Phase phase = startup.begin("index.build");
+            searchIndex.build();
+            phase.end();
+            return null;
+        });
+    }
+
+    /**
+     * Creates the scene with the menu view as its root and the application stylesheet applied.
+     *
+     * @param width the width of the scene
+     * @param height the height of the scene
+     * @return the scene
+     * @throws IOException if the menu view cannot be loaded
+     */
+    public Scene createScene(double width, double height) throws IOException {
+        scene = new Scene(load(View.MENU), width, height);
+        profiler.attach(scene);
+        posts.addListener((ListChangeListener<Post>) change -> profiler.tableUpdated());
+        scene.getStylesheets().add(getClass().getResource(STYLESHEET).toExternalForm());
+        controllers.get(View.MENU).onShow();
+        return scene;
+    }
+
+    /**
+     * Parses the FXML of all views that have not been loaded yet on the given executor,
+     * so neither the first frame nor the first visit of a screen has to wait for it,
+     * and warms up the CSS parser with the application stylesheet. A view whose parse
+     * failed is parsed again when it is shown, which reports the error.
+     *
+     * May be called from any thread before the scene is created, e.g. from
+     * {@code Application.init()}, and on the FX thread afterwards.
+     *
+     * @param executor runs the parsing, one task per view
+     */
+    public void preload(Executor executor) {
+        for (View view : View.values()) {
+            if (roots.containsKey(view) || pending.containsKey(view)) {
+                continue;
+            }
+            pending.put(view, CompletableFuture.supplyAsync(() -> {
+                StartupTimeline.Phase phase = startup.begin("fxml." + view);
+                try {
+                    return parse(view);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    phase.end();
+                }
+            }, executor));
+        }
+        executor.execute(() -> {
+            StartupTimeline.Phase phase = startup.begin("stylesheet.parse");
+            try {
+                new CssParser().parse(getClass().getResource(STYLESHEET));
+            } catch (IOException e) {
+                // reported when the scene loads the stylesheet
+            } finally {
+                phase.end();
+            }
+        });
+    }
+
+    /**
+     * Makes the given view the root of the scene.
+     *
+     * @param view the view to show
+     * @throws IOException if the view has not been loaded before and cannot be loaded
+     */
+    public void show(View view) throws IOException {
+        long start = System.nanoTime();
+        UiProfiler.Scope scope = profiler.enter("ViewManager.show " + view);
+        try {
+            Parent root = load(view);
+            scene.setRoot(root);
+            controllers.get(view).onShow();
+        } finally {
+            scope.close();
+        }
+        MetricRegistry.getDefault().histogram("view.show." + view).recordSince(start);
+    }
+
+    /**
+     * Returns the repository shown by the views.
+     *
+     * @return the PostRepository instance
+     */
+    public PostRepository getRepository() {
+        return repository;
+    }
+
+    /**
+     * Returns the asynchronous facade over the repository, for operations that should
+     * not run on the FX thread.
+     *
+     * @return the AsyncPostRepository instance
+     */
+    public AsyncPostRepository getAsyncRepository() {
+        return asyncRepository;
+    }
+
+    /**
+     * Returns the executor that runs tasks on the FX thread, batching tasks that
+     * complete together.
+     *
+     * @return the FxBatchDispatcher instance
+     */
+    public FxBatchDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Returns the full-text index over the repository's posts.
+     *
+     * @return the PostSearchIndex instance
+     */
+    public PostSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    /**
+     * Returns the post list shared by all tables.
+     *
+     * @return the shared PagedPostList
+     */
+    public PagedPostList getPosts() {
+        return posts;
+    }
+
+    /**
+     * Returns the profiler measuring the responsiveness of the scene.
+     *
+     * @return the UiProfiler instance
+     */
+    public UiProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Stops following the repository and shuts down the asynchronous repository and
+     * the profiler.
+     */
+    @Override
+    public void close() {
+        profiler.close();
+        posts.dispose();
+        searchIndex.dispose();
+        asyncRepository.close();
+    }
+
+    private Parent load(View view) throws IOException {
+        Parent root = roots.get(view);
+        if (root == null) {
+            long start = System.nanoTime();
+            ManagedView controller;
+            UiProfiler.Scope scope = profiler.enter("ViewManager.load " + view);
+            try {
+                FXMLLoader loader = null;
+                CompletableFuture<FXMLLoader> parsed = pending.remove(view);
+                if (parsed != null) {
+                    try {
+                        loader = parsed.join();
+                    } catch (CompletionException e) {
+                        // parsed again below, which reports the error
+                    }
+                }
+                if (loader == null) {
+                    loader = parse(view);
+                }
+                root = loader.getRoot();
+                controller = loader.getController();
+                controller.setViewManager(this);
+            } finally {
+                scope.close();
+            }
+            roots.put(view, root);
+            controllers.put(view, controller);
+            MetricRegistry.getDefault().histogram("view.load." + view).recordSince(start);
+        }
+        return root;
+    }
+
+    /**
+     * Parses the FXML of a view without attaching it to the application, so it may run
+     * on any thread.
+     */
+    private FXMLLoader parse(View view) throws IOException {
+        FXMLLoader loader = new FXMLLoader(getClass().getResource(view.fxml));
+        loader.load();
+        return loader;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count of events. Increments from many threads do not
+ * contend with each other.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public final class Counter implements CounterMXBean {
+
+    private final LongAdder count = new LongAdder();
+
+    Counter() {}
+
+    /**
+     * Counts one event.
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Counts several events.
+     *
+     * @param events The number of events
+     */
+    public void add(long events) {
+        count.add(events);
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+}
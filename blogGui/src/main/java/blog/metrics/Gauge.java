@@ -0,0 +1,28 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A value that is sampled when it is read, such as the number of posts.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public final class Gauge implements GaugeMXBean {
+
+    private final LongSupplier value;
+
+    Gauge(LongSupplier value) {
+        this.value = value;
+    }
+
+    @Override
+    public long getValue() {
+        return value.getAsLong();
+    }
+}
@@ -0,0 +1,22 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+
+package blog.metrics;
+
+/**
+ * JMX view of a {@link Gauge}.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public interface GaugeMXBean {
+
+    /**
+     * Returns the current value.
+     *
+     * @return The value
+     */
+    long getValue();
+}
@@ -0,0 +1,69 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+
+package blog.metrics;
+
+/**
+ * JMX view of a {@link LatencyHistogram}. All latencies are in microseconds.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public interface LatencyHistogramMXBean {
+
+    /**
+     * Returns the number of recorded operations.
+     *
+     * @return The count
+     */
+    long getCount();
+
+    /**
+     * Returns the mean latency.
+     *
+     * @return The mean in microseconds
+     */
+    double getMeanMicros();
+
+    /**
+     * Returns the median latency.
+     *
+     * @return The 50th percentile in microseconds
+     */
+    double getP50Micros();
+
+    /**
+     * Returns the 90th percentile latency.
+     *
+     * @return The 90th percentile in microseconds
+     */
+    double getP90Micros();
+
+    /**
+     * Returns the 99th percentile latency.
+     *
+     * @return The 99th percentile in microseconds
+     */
+    double getP99Micros();
+
+    /**
+     * Returns the 99.9th percentile latency.
+     *
+     * @return The 99.9th percentile in microseconds
+     */
+    double getP999Micros();
+
+    /**
+     * Returns the highest recorded latency.
+     *
+     * @return The maximum in microseconds
+     */
+    double getMaxMicros();
+
+    /**
+     * Discards all recorded values.
+     */
+    void reset();
+}
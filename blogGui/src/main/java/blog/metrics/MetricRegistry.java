@@ -0,0 +1,207 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The MetricRegistry class holds the named counters, gauges and latency histograms of
+ * the application.
+ *
+ * Metrics are created on first use and live as long as the registry. After
+ * {@link #registerMBeans()} every metric, including those created later, is published
+ * as an MXBean in the {@code blog} JMX domain, so it can be watched with JConsole or
+ * VisualVM. {@link #dump(Path)} writes all metrics to a text file.
+ *
+ * Names are dotted paths such as {@code repository.addPost} or {@code view.load.MENU}.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public final class MetricRegistry implements MetricRegistryMXBean {
+
+    private static final System.Logger LOG = System.getLogger(MetricRegistry.class.getName());
+    private static final MetricRegistry DEFAULT = new MetricRegistry();
+
+    private final Map<String, Object> metrics = new ConcurrentSkipListMap<>();
+    private volatile MBeanServer server;
+
+    /**
+     * Creates an empty registry.
+     */
+    public MetricRegistry() {}
+
+    /**
+     * Returns the registry used by the application.
+     *
+     * @return The shared registry
+     */
+    public static MetricRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the counter with the given name, creating it if necessary.
+     *
+     * @param name The metric name
+     * @return The counter
+     */
+    public Counter counter(String name) {
+        return metric(name, Counter.class, Counter::new);
+    }
+
+    /**
+     * Returns the latency histogram with the given name, creating it if necessary.
+     *
+     * @param name The metric name
+     * @return The histogram
+     */
+    public LatencyHistogram histogram(String name) {
+        return metric(name, LatencyHistogram.class, LatencyHistogram::new);
+    }
+
+    /**
+     * Registers a gauge, replacing an earlier gauge with the same name.
+     *
+     * @param name The metric name
+     * @param value Samples the current value; called whenever the gauge is read
+     * @return The gauge
+     */
+    public Gauge gauge(String name, LongSupplier value) {
+        Gauge gauge = new Gauge(value);
+        Object previous = metrics.put(name, gauge);
+        if (previous != null && !(previous instanceof Gauge)) {
+            metrics.put(name, previous);
+            throw new IllegalArgumentException("Metric '" + name + "' is not a gauge.");
+        }
+        if (previous != null) {
+            unregister(name, previous);
+        }
+        register(name, gauge);
+        return gauge;
+    }
+
+    /**
+     * Publishes the registry and all of its metrics in the platform MBean server.
+     * Metrics created afterwards are published as they are created.
+     *
+     * @throws JMException if the MBeans cannot be registered
+     */
+    public void registerMBeans() throws JMException {
+        MBeanServer platform = ManagementFactory.getPlatformMBeanServer();
+        ObjectName registryName = new ObjectName("blog:type=MetricRegistry");
+        if (!platform.isRegistered(registryName)) {
+            platform.registerMBean(this, registryName);
+        }
+        server = platform;
+        metrics.forEach(this::register);
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        metrics.forEach((name, metric) -> {
+            report.append(name).append(' ');
+            if (metric instanceof LatencyHistogram histogram) {
+                report.append(String.format(Locale.ROOT,
+                        "count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p999=%.1fus max=%.1fus",
+                        histogram.getCount(), histogram.getMeanMicros(), histogram.getP50Micros(),
+                        histogram.getP90Micros(), histogram.getP99Micros(), histogram.getP999Micros(),
+                        histogram.getMaxMicros()));
+            } else if (metric instanceof Counter counter) {
+                report.append("count=").append(counter.getCount());
+            } else if (metric instanceof Gauge gauge) {
+                report.append("value=").append(gauge.getValue());
+            }
+            report.append('\n');
+        });
+        return report.toString();
+    }
+
+    /**
+     * Writes a report of all metrics to a file. The file is replaced atomically, so a
+     * reader never sees a partial report.
+     *
+     * @param file The destination file
+     * @throws IOException if the file cannot be written
+     */
+    public void dump(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temporary, getReport(), StandardCharsets.UTF_8);
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public void dump(String file) throws IOException {
+        dump(Path.of(file));
+    }
+
+    private <T> T metric(String name, Class<T> type, Supplier<T> factory) {
+        Object metric = metrics.get(name);
+        if (metric == null) {
+            boolean[] created = new boolean[1];
+            metric = metrics.computeIfAbsent(name, key -> {
+                created[0] = true;
+                return factory.get();
+            });
+            if (created[0]) {
+                register(name, metric);
+            }
+        }
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException("Metric '" + name + "' is not a " + type.getSimpleName() + ".");
+        }
+        return type.cast(metric);
+    }
+
+    private void register(String name, Object metric) {
+        MBeanServer platform = server;
+        if (platform == null) {
+            return;
+        }
+        try {
+            ObjectName objectName = objectName(name, metric);
+            if (!platform.isRegistered(objectName)) {
+                platform.registerMBean(metric, objectName);
+            }
+        } catch (JMException e) {
+            // Metrics keep working without JMX; the name is reported once.
+            LOG.log(System.Logger.Level.WARNING, "Cannot publish metric '" + name + "': " + e.getMessage());
+        }
+    }
+
+    private void unregister(String name, Object metric) {
+        MBeanServer platform = server;
+        if (platform == null) {
+            return;
+        }
+        try {
+            ObjectName objectName = objectName(name, metric);
+            if (platform.isRegistered(objectName)) {
+                platform.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            // The MBean is already gone.
+        }
+    }
+
+    private static ObjectName objectName(String name, Object metric) throws JMException {
+        return new ObjectName("blog:type=" + metric.getClass().getSimpleName() + ",name=" + ObjectName.quote(name));
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+
+package blog.metrics;
+
+import java.io.IOException;
+
+/**
+ * JMX view of the {@link MetricRegistry}, for reading all metrics at once.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public interface MetricRegistryMXBean {
+
+    /**
+     * Returns a text report of all metrics, one per line.
+     *
+     * @return The report
+     */
+    String getReport();
+
+    /**
+     * Writes the report to a file.
+     *
+     * @param file The path of the file to write
+     * @throws IOException if the file cannot be written
+     */
+    void dump(String file) throws IOException;
+}
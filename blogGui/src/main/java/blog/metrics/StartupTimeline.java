@@ -0,0 +1,122 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The StartupTimeline class records the phases of the application startup, which may
+ * run concurrently on several threads, and the milestones reached along the way.
+ *
+ * All times are measured from the start of the JVM, so the timeline also covers the
+ * time spent before the application code runs. Every phase and milestone is recorded
+ * in the default {@link MetricRegistry} as {@code startup.<name>}, so startup times
+ * appear in the metrics dump and over JMX.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public final class StartupTimeline {
+
+    private final long originNanos;
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Creates a timeline whose origin is the start of the JVM.
+     */
+    public StartupTimeline() {
+        long sinceJvmStart = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        originNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(Math.max(0, sinceJvmStart));
+    }
+
+    /**
+     * Starts a phase on the calling thread.
+     *
+     * @param name The name of the phase
+     * @return The phase, to be ended with {@link Phase#end()}
+     */
+    public Phase begin(String name) {
+        return new Phase(name, System.nanoTime(), Thread.currentThread().getName());
+    }
+
+    /**
+     * Records a milestone reached now, such as the first paint of the window.
+     *
+     * @param name The name of the milestone
+     */
+    public void mark(String name) {
+        long now = System.nanoTime();
+        add(new Entry(name, now - originNanos, -1, Thread.currentThread().getName()));
+        MetricRegistry.getDefault().histogram("startup." + name).record(now - originNanos);
+    }
+
+    /**
+     * Returns a report of all phases and milestones, ordered by their start.
+     *
+     * @return One line per entry
+     */
+    public String report() {
+        List<Entry> sorted;
+        synchronized (entries) {
+            sorted = new ArrayList<>(entries);
+        }
+        sorted.sort(Comparator.comparingLong(Entry::startNanos));
+        StringBuilder report = new StringBuilder("Startup timeline (ms since JVM start):\n");
+        for (Entry entry : sorted) {
+            if (entry.durationNanos() < 0) {
+                report.append(String.format(Locale.ROOT, "  %8.1f          %-28s [%s]%n",
+                        entry.startNanos() / 1e6, entry.name(), entry.thread()));
+            } else {
+                report.append(String.format(Locale.ROOT, "  %8.1f %+8.1f %-28s [%s]%n",
+                        entry.startNanos() / 1e6, entry.durationNanos() / 1e6, entry.name(), entry.thread()));
+            }
+        }
+        return report.toString();
+    }
+
+    private void add(Entry entry) {
+        synchronized (entries) {
+            entries.add(entry);
+        }
+    }
+
+    /**
+     * A running phase of the startup.
+     */
+    public final class Phase {
+
+        private final String name;
+        private final long start;
+        private final String thread;
+        private boolean ended;
+
+        private Phase(String name, long start, String thread) {
+            this.name = name;
+            this.start = start;
+            this.thread = thread;
+        }
+
+        /**
+         * Ends the phase; later calls have no effect.
+         */
+        public void end() {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            long duration = System.nanoTime() - start;
+            add(new Entry(name, start - originNanos, duration, thread));
+            MetricRegistry.getDefault().histogram("startup." + name).record(duration);
+        }
+    }
+
+    private record Entry(String name, long startNanos, long durationNanos, String thread) {}
+}
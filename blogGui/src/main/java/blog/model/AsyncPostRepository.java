@@ -0,0 +1,210 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The AsyncPostRepository class runs PostRepository operations on virtual threads and
+ * returns their results as CompletableFutures, so callers such as the JavaFX
+ * Application Thread never wait for the repository.
+ *
+ * A failed operation completes its future with the original exception, for example
+ * a PostNotFoundException, not with a wrapping CompletionException.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public class AsyncPostRepository implements AutoCloseable {
+
+    private final PostRepository repository;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Creates an asynchronous facade over the given repository.
+     *
+     * @param repository The repository to run the operations against
+     */
+    public AsyncPostRepository(PostRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Returns the repository behind this facade.
+     *
+     * @return The PostRepository instance
+     */
+    public PostRepository getRepository() {
+        return repository;
+    }
+
+    /**
+     * Retrieves the posts of an author asynchronously.
+     *
+     * @param author The author's name to filter posts
+     * @return A future of the posts written by the author
+     */
+    public CompletableFuture<List<Post>> getPostsByAuthor(String author) {
+        return submit(() -> repository.getPostsByAuthor(author));
+    }
+
+    /**
+     * Applies a batch of changes asynchronously; see {@link PostRepository#update(PostBatch)}.
+     *
+     * @param batch The changes to apply
+     * @return A future of the stored changed posts, completed once the whole batch is applied
+     */
+    public CompletableFuture<List<Post>> update(PostBatch batch) {
+        return submit(() -> repository.update(batch));
+    }
+
+    /**
+     * Runs a query asynchronously; see {@link PostRepository#query(PostQuery)}.
+     *
+     * @param query The query
+     * @return A future of the matching posts
+     */
+    public CompletableFuture<List<Post>> query(PostQuery query) {
+        return submit(() -> repository.query(query));
+    }
+
+    /**
+     * Retrieves all posts asynchronously.
+     *
+     * @return A future of the list of posts
+     */
+    public CompletableFuture<List<Post>> getallPosts() {
+        return submit(repository::getallPosts);
+    }
+
+    /**
+     * Retrieves one page of posts asynchronously.
+     *
+     * @param fromIndex The index of the first post of the page
+     * @param count The maximum number of posts to return
+     * @return A future of the posts of the page
+     */
+    public CompletableFuture<List<Post>> getPosts(int fromIndex, int count) {
+        return submit(() -> repository.getPosts(fromIndex, count));
+    }
+
+    /**
+     * Adds a post asynchronously.
+     *
+     * @param post The Post object to add
+     * @return A future completed with the stored post, carrying its id
+     */
+    public CompletableFuture<Post> addPost(Post post) {
+        return submit(() -> repository.addPost(post));
+    }
+
+    /**
+     * Deletes a post by its id asynchronously.
+     *
+     * @param id The id of the post to delete
+     * @return A future completed once the post was deleted, or completed with a
+     *         PostNotFoundException if there is no such post
+     */
+    public CompletableFuture<Void> deletePost(long id) {
+        return submit(() -> {
+            repository.deletePost(id);
+            return null;
+        });
+    }
+
+    /**
+     * Deletes a post by its title asynchronously.
+     *
+     * @param postTitleToDelete The title of the post to delete
+     * @return A future completed once the post was deleted, or completed with a
+     *         PostNotFoundException if there is no such post
+     */
+    public CompletableFuture<Void> deletePost(String postTitleToDelete) {
+        return submit(() -> {
+            repository.deletePost(postTitleToDelete);
+            return null;
+        });
+    }
+
+    /**
+     * Modifies the title or content of a post by its id asynchronously.
+     *
+     * @param id The id of the post to modify
+     * @param newValue The new title or content
+     * @param type Which field to modify
+     * @return A future completed once the post was modified, or completed with a
+     *         PostNotFoundException if there is no such post
+     */
+    public CompletableFuture<Void> modifyPost(long id, String newValue, PostRepository.ModificationType type) {
+        return submit(() -> {
+            repository.modifyPost(id, newValue, type);
+            return null;
+        });
+    }
+
+    /**
+     * Modifies the title or content of a post asynchronously.
+     *
+     * @param postTitleToModify The current title of the post to modify
+     * @param newValue The new title or content
+     * @param type Which field to modify
+     * @return A future completed once the post was modified, or completed with a
+     *         PostNotFoundException if there is no such post
+     */
+    public CompletableFuture<Void> modifyPost(String postTitleToModify, String newValue,
+            PostRepository.ModificationType type) {
+        return submit(() -> {
+            repository.modifyPost(postTitleToModify, newValue, type);
+            return null;
+        });
+    }
+
+    /**
+     * Stops accepting new operations and waits for the operations already submitted.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    /**
+     * Runs any other operation on a virtual thread, for example a query against an index
+     * that follows the repository.
+     *
+     * @param operation The operation to run
+     * @return A future of the operation's result
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(operation.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Returns the message of the exception that failed an operation. Futures returned
+     * here complete with the original exception, but a stage chained onto them, or
+     * {@link CompletableFuture#join()}, sees it wrapped in a CompletionException, which
+     * is unwrapped first.
+     *
+     * @param error The failure, possibly wrapped in a CompletionException
+     * @return The message of the underlying exception
+     */
+    public static String messageOf(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getMessage();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The AuthorDictionary class assigns every distinct author name a small integer id,
+ * so posts store one int instead of their own copy of the name.
+ *
+ * Ids are never reused or removed; the dictionary only grows with new author names.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+final class AuthorDictionary {
+
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[64];
+    private static int size;
+
+    private AuthorDictionary() {}
+
+    /**
+     * Returns the id of the given author name, assigning a new one if needed.
+     *
+     * @param name The author name, compared exactly
+     * @return The id of the name
+     */
+    static int idOf(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (AuthorDictionary.class) {
+            id = ids.get(name);
+            if (id == null) {
+                String[] current = names;
+                if (size == current.length) {
+                    current = Arrays.copyOf(current, size * 2);
+                }
+                current[size] = name;
+                names = current;
+                id = size++;
+                ids.put(name, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Returns the author name with the given id.
+     *
+     * @param id An id returned by {@link #idOf(String)}
+     * @return The author name
+     */
+    static String nameOf(int id) {
+        return names[id];
+    }
+}
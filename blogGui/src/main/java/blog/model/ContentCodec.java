@@ -0,0 +1,170 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The ContentCodec class stores post contents as compact byte arrays.
+ *
+ * Contents are kept as UTF-8, which takes half the memory of a String for Polish text
+ * with diacritics. Longer contents are additionally deflated when that makes them
+ * smaller. The first byte of the encoded form tells which of the two was used; deflated
+ * contents also store their UTF-8 length.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+final class ContentCodec {
+
+    private static final byte RAW = 0;
+    private static final byte DEFLATED = 1;
+    private static final int COMPRESSION_THRESHOLD = 256;
+
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+    // Deflaters and inflaters hold native memory until end() is called, so a bounded
+    // number of them is kept for reuse and any extra one is ended straight away. A
+    // ThreadLocal would not help the virtual threads of the HTTP server, which each
+    // run a single request, and would never end its streams.
+    private static final ArrayBlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final ArrayBlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private ContentCodec() {}
+
+    /**
+     * Encodes a content string.
+     *
+     * @param content The content
+     * @return The encoded content
+     */
+    static byte[] encode(String content) {
+        byte[] utf8 = content.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length >= COMPRESSION_THRESHOLD) {
+            byte[] deflated = deflate(utf8);
+            if (deflated != null) {
+                return deflated;
+            }
+        }
+        byte[] encoded = new byte[utf8.length + 1];
+        encoded[0] = RAW;
+        System.arraycopy(utf8, 0, encoded, 1, utf8.length);
+        return encoded;
+    }
+
+    /**
+     * Decodes an encoded content back into a string.
+     *
+     * @param encoded The output of {@link #encode(String)}
+     * @return The content
+     */
+    static String decode(byte[] encoded) {
+        if (encoded[0] == RAW) {
+            return new String(encoded, 1, encoded.length - 1, StandardCharsets.UTF_8);
+        }
+        int length = (encoded[1] & 0xFF) << 24 | (encoded[2] & 0xFF) << 16 | (encoded[3] & 0xFF) << 8 | encoded[4] & 0xFF;
+        byte[] utf8 = new byte[length];
+        Inflater inflater = inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+        try {
+            inflater.setInput(encoded, 5, encoded.length - 5);
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                read += inflater.inflate(utf8, read, length - read);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted post content.", e);
+        } finally {
+            inflater.reset();
+            if (!inflaters.offer(inflater)) {
+                inflater.end();
+            }
+        }
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the beginning of an encoded content as a single line of at most the given
+     * number of characters, ending with an ellipsis if anything was cut off. For
+     * uncompressed contents only the bytes needed for the preview are decoded.
+     *
+     * @param encoded The output of {@link #encode(String)}
+     * @param maxLength The maximum length of the preview
+     * @return The preview
+     */
+    static String preview(byte[] encoded, int maxLength) {
+        String text;
+        boolean more;
+        if (encoded[0] == RAW) {
+            // One UTF-16 char never takes more than three UTF-8 bytes.
+            int length = Math.min(encoded.length - 1, maxLength * 3 + 3);
+            text = new String(encoded, 1, length, StandardCharsets.UTF_8);
+            more = length < encoded.length - 1;
+        } else {
+            text = decode(encoded);
+            more = false;
+        }
+        int end = text.length();
+        if (end > maxLength) {
+            end = maxLength;
+            if (Character.isHighSurrogate(text.charAt(end - 1))) {
+                end--;
+            }
+            more = true;
+        }
+        StringBuilder preview = new StringBuilder(end + 1);
+        for (int i = 0; i < end; i++) {
+            char c = text.charAt(i);
+            preview.append(c == '\n' || c == '\r' || c == '\t' ? ' ' : c);
+        }
+        if (more) {
+            preview.append('\u2026');
+        }
+        return preview.toString();
+    }
+
+    /**
+     * Deflates the UTF-8 bytes, returning null if that does not save space.
+     */
+    private static byte[] deflate(byte[] utf8) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+        }
+        byte[] encoded = new byte[utf8.length + 1];
+        int written = 5;
+        boolean finished;
+        try {
+            deflater.setInput(utf8);
+            deflater.finish();
+            while (!deflater.finished() && written < encoded.length) {
+                written += deflater.deflate(encoded, written, encoded.length - written);
+            }
+            finished = deflater.finished();
+        } finally {
+            deflater.reset();
+            if (!deflaters.offer(deflater)) {
+                deflater.end();
+            }
+        }
+        if (!finished) {
+            return null;
+        }
+        encoded[0] = DEFLATED;
+        encoded[1] = (byte) (utf8.length >>> 24);
+        encoded[2] = (byte) (utf8.length >>> 16);
+        encoded[3] = (byte) (utf8.length >>> 8);
+        encoded[4] = (byte) utf8.length;
+        return Arrays.copyOf(encoded, written);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The JsonCodec class holds the JSON string escaping and the flat object parser shared
+ * by {@link PostImporter}, {@link PostExporter} and the HTTP service, so every place
+ * that reads or writes posts as JSON accepts and produces exactly the same text.
+ *
+ * Only what posts need is supported: strings are escaped into a caller's StringBuilder,
+ * and the parser reads one object whose members are strings, numbers, booleans or null.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public final class JsonCodec {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private JsonCodec() {}
+
+    /**
+     * Appends a string as a quoted JSON string. Quotes, backslashes and control
+     * characters are escaped; everything else is appended unchanged.
+     *
+     * @param json The builder to append to
+     * @param value The string
+     */
+    public static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        int plain = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            json.append(value, plain, i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> json.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            }
+            plain = i + 1;
+        }
+        json.append(value, plain, value.length()).append('"');
+    }
+
+    /**
+     * Parses a flat JSON object and returns its string members. Numbers, booleans and
+     * null are accepted but left out of the result.
+     *
+     * @param text The JSON object
+     * @return The string members of the object, by name
+     * @throws IllegalArgumentException if the text is not a flat JSON object
+     */
+    public static Map<String, String> parseObject(String text) {
+        return new Parser(text).object();
+    }
+
+    /**
+     * Recursive-descent parser for one flat object.
+     */
+    private static final class Parser {
+
+        private final String text;
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Map<String, String> object() {
+            Map<String, String> fields = new HashMap<>();
+            expect('{');
+            if (peek() == '}') {
+                position++;
+            } else {
+                do {
+                    String name = string();
+                    expect(':');
+                    if (peek() == '"') {
+                        fields.put(name, string());
+                    } else {
+                        literal();
+                    }
+                } while (next() == ',');
+                position--;
+                expect('}');
+            }
+            if (peek() != 0) {
+                throw error("Unexpected content after the object");
+            }
+            return fields;
+        }
+
+        /**
+         * Skips a number, boolean or null.
+         */
+        private void literal() {
+            char c = peek();
+            if (c == '{' || c == '[') {
+                throw error("Nested values are not supported");
+            }
+            int start = position;
+            while (position < text.length() && "{}[]\",: \t\r\n".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            if (position == start) {
+                throw error("Missing value");
+            }
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                if (position >= text.length()) {
+                    throw error("Unterminated string");
+                }
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    throw error("Unterminated string");
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case '"', '\\', '/' -> value.append(escaped);
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) {
+                            throw error("Invalid unicode escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text, position, position + 4, 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid unicode escape");
+                        }
+                        position += 4;
+                    }
+                    default -> throw error("Invalid escape");
+                }
+            }
+        }
+
+        private void expect(char expected) {
+            if (next() != expected) {
+                throw error("Expected '" + expected + "'");
+            }
+        }
+
+        /**
+         * Returns the next character after whitespace and consumes it, or 0 at the end.
+         */
+        private char next() {
+            char c = peek();
+            if (c != 0) {
+                position++;
+            }
+            return c;
+        }
+
+        /**
+         * Returns the next character after whitespace without consuming it, or 0 at the end.
+         */
+        private char peek() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            return position < text.length() ? text.charAt(position) : 0;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position + " of the JSON text.");
+        }
+    }
+}
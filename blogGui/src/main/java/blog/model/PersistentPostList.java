@@ -0,0 +1,447 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * The PersistentPostList class is an immutable list of posts whose updates return a
+ * new version and leave the old one untouched.
+ *
+ * The posts are kept in leaves of up to {@value #CHUNK} posts, which are the leaves of a
+ * height-balanced binary tree whose nodes know the size of their subtree. An update
+ * copies only the leaf and the nodes on the path to it and shares everything else with
+ * the previous version, so inserting, replacing or removing a post at any index and
+ * looking one up all take O(log n). Appending a batch builds a tree from the batch and
+ * joins it to the existing one.
+ *
+ * Since a version never changes, it can be handed to any thread and read without
+ * locks; the list mutators inherited from {@link List} throw
+ * {@link UnsupportedOperationException}.
+ *
+ * Every node also knows the largest post id below it. In lists whose posts are ordered
+ * by id, which PostRepository guarantees by only appending posts with new ids,
+ * {@link #indexOfId(long)} finds the position of a post in O(log n).
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public final class PersistentPostList extends AbstractList<Post> {
+
+    private static final int CHUNK = 32;
+    private static final Post[] NO_POSTS = new Post[0];
+    private static final PersistentPostList EMPTY = new PersistentPostList(null);
+
+    private final Node root;
+
+    private PersistentPostList(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns the empty list.
+     *
+     * @return The empty list
+     */
+    static PersistentPostList empty() {
+        return EMPTY;
+    }
+
+    @Override
+    public Post get(int index) {
+        Objects.checkIndex(index, size());
+        Node node = root;
+        while (node instanceof Branch branch) {
+            if (index < branch.left.size) {
+                node = branch.left;
+            } else {
+                index -= branch.left.size;
+                node = branch.right;
+            }
+        }
+        return ((Leaf) node).posts[index];
+    }
+
+    @Override
+    public int size() {
+        return root == null ? 0 : root.size;
+    }
+
+    /**
+     * Returns the index of the post with the given id. The posts must be ordered by id,
+     * as in the versions returned by {@link PostRepository#getallPosts()}.
+     *
+     * @param id The id of the post
+     * @return The index of the post, or -1 if the list holds no post with that id
+     */
+    public int indexOfId(long id) {
+        Node node = root;
+        if (node == null || id > node.lastId) {
+            return -1;
+        }
+        int offset = 0;
+        while (node instanceof Branch branch) {
+            if (id <= branch.left.lastId) {
+                node = branch.left;
+            } else {
+                offset += branch.left.size;
+                node = branch.right;
+            }
+        }
+        Post[] posts = ((Leaf) node).posts;
+        int low = 0;
+        int high = posts.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = posts[middle].getId();
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return offset + middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a version with the post appended.
+     *
+     * @param post The post to append
+     * @return The new version
+     */
+    PersistentPostList plus(Post post) {
+        return insert(size(), post);
+    }
+
+    /**
+     * Returns a version with the posts appended, in order.
+     *
+     * @param posts The posts to append
+     * @return The new version
+     */
+    PersistentPostList plusAll(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return this;
+        }
+        Post[] added = posts.toArray(NO_POSTS);
+        return new PersistentPostList(concat(root, build(added, 0, added.length)));
+    }
+
+    /**
+     * Returns a version with the post inserted at the given index.
+     *
+     * @param index The index of the new post, between 0 and the size
+     * @param post The post to insert
+     * @return The new version
+     */
+    PersistentPostList insert(int index, Post post) {
+        Objects.checkIndex(index, size() + 1);
+        if (root == null) {
+            return new PersistentPostList(new Leaf(new Post[] {post}));
+        }
+        return new PersistentPostList(insert(root, index, post));
+    }
+
+    /**
+     * Returns a version with the post at the given index replaced.
+     *
+     * @param index The index of the post to replace
+     * @param post The new post
+     * @return The new version
+     */
+    PersistentPostList with(int index, Post post) {
+        Objects.checkIndex(index, size());
+        return new PersistentPostList(replace(root, index, post));
+    }
+
+    /**
+     * Returns a version without the post at the given index.
+     *
+     * @param index The index of the post to remove
+     * @return The new version
+     */
+    PersistentPostList minus(int index) {
+        Objects.checkIndex(index, size());
+        return new PersistentPostList(remove(root, index));
+    }
+
+    /**
+     * Iterates leaf by leaf, so a full iteration takes O(n) instead of O(n log n).
+     */
+    @Override
+    public Iterator<Post> iterator() {
+        return new Iterator<>() {
+            private int index;
+            private Post[] leaf = NO_POSTS;
+            private int offset;
+
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+
+            @Override
+            public Post next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (offset == leaf.length) {
+                    leaf = leafStartingAt(index);
+                    offset = 0;
+                }
+                index++;
+                return leaf[offset++];
+            }
+        };
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        int index = 0;
+        for (Post post : this) {
+            if (Objects.equals(o, post)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * Passes the posts in the given index range to the action, in order. The range is
+     * walked leaf by leaf, in O(log n) plus the length of the range.
+     *
+     * @param from The index of the first post, inclusive
+     * @param to The index of the last post, exclusive
+     * @param action The action to run for every post
+     */
+    void forEach(int from, int to, Consumer<? super Post> action) {
+        Objects.checkFromToIndex(from, to, size());
+        if (from < to) {
+            forEach(root, from, to, action);
+        }
+    }
+
+    private static void forEach(Node node, int from, int to, Consumer<? super Post> action) {
+        if (node instanceof Leaf leaf) {
+            for (int i = from; i < to; i++) {
+                action.accept(leaf.posts[i]);
+            }
+            return;
+        }
+        Branch branch = (Branch) node;
+        int leftSize = branch.left.size;
+        if (from < leftSize) {
+            forEach(branch.left, from, Math.min(to, leftSize), action);
+        }
+        if (to > leftSize) {
+            forEach(branch.right, Math.max(0, from - leftSize), to - leftSize, action);
+        }
+    }
+
+    /**
+     * Returns the posts of the leaf whose first post has the given index.
+     */
+    private Post[] leafStartingAt(int index) {
+        Node node = root;
+        while (node instanceof Branch branch) {
+            if (index < branch.left.size) {
+                node = branch.left;
+            } else {
+                index -= branch.left.size;
+                node = branch.right;
+            }
+        }
+        return ((Leaf) node).posts;
+    }
+
+    private static Node insert(Node node, int index, Post post) {
+        if (node instanceof Leaf leaf) {
+            Post[] posts = leaf.posts;
+            if (posts.length == CHUNK && index == CHUNK) {
+                // Appending to a full leaf starts a new one, so sequential appends fill every leaf.
+                return new Branch(leaf, new Leaf(new Post[] {post}));
+            }
+            Post[] inserted = new Post[posts.length + 1];
+            System.arraycopy(posts, 0, inserted, 0, index);
+            inserted[index] = post;
+            System.arraycopy(posts, index, inserted, index + 1, posts.length - index);
+            if (inserted.length <= CHUNK) {
+                return new Leaf(inserted);
+            }
+            int half = inserted.length / 2;
+            return new Branch(new Leaf(Arrays.copyOfRange(inserted, 0, half)),
+                    new Leaf(Arrays.copyOfRange(inserted, half, inserted.length)));
+        }
+        Branch branch = (Branch) node;
+        if (index <= branch.left.size) {
+            return balance(insert(branch.left, index, post), branch.right);
+        }
+        return balance(branch.left, insert(branch.right, index - branch.left.size, post));
+    }
+
+    private static Node replace(Node node, int index, Post post) {
+        if (node instanceof Leaf leaf) {
+            Post[] posts = leaf.posts.clone();
+            posts[index] = post;
+            return new Leaf(posts);
+        }
+        Branch branch = (Branch) node;
+        if (index < branch.left.size) {
+            return new Branch(replace(branch.left, index, post), branch.right);
+        }
+        return new Branch(branch.left, replace(branch.right, index - branch.left.size, post));
+    }
+
+    /**
+     * Removes the post at the given index and returns the new subtree, or null if it
+     * became empty.
+     */
+    private static Node remove(Node node, int index) {
+        if (node instanceof Leaf leaf) {
+            Post[] posts = leaf.posts;
+            if (posts.length == 1) {
+                return null;
+            }
+            Post[] remaining = new Post[posts.length - 1];
+            System.arraycopy(posts, 0, remaining, 0, index);
+            System.arraycopy(posts, index + 1, remaining, index, remaining.length - index);
+            return new Leaf(remaining);
+        }
+        Branch branch = (Branch) node;
+        if (index < branch.left.size) {
+            return concat(remove(branch.left, index), branch.right);
+        }
+        return concat(branch.left, remove(branch.right, index - branch.left.size));
+    }
+
+    /**
+     * Joins two subtrees of any heights into one balanced subtree holding the posts of
+     * the left one followed by those of the right one. Subtrees that fit into one leaf
+     * are merged into it, so removals do not leave many small leaves behind.
+     */
+    private static Node concat(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.size + right.size <= CHUNK) {
+            Post[] posts = new Post[left.size + right.size];
+            copyInto(left, posts, 0);
+            copyInto(right, posts, left.size);
+            return new Leaf(posts);
+        }
+        if (left.height > right.height + 1) {
+            Branch branch = (Branch) left;
+            return balance(branch.left, concat(branch.right, right));
+        }
+        if (right.height > left.height + 1) {
+            Branch branch = (Branch) right;
+            return balance(concat(left, branch.left), branch.right);
+        }
+        return new Branch(left, right);
+    }
+
+    /**
+     * Creates a branch over two balanced subtrees, rotating if their heights differ by
+     * two and joining them if they differ by more.
+     */
+    private static Node balance(Node left, Node right) {
+        int difference = left.height - right.height;
+        if (difference > 2 || difference < -2) {
+            return concat(left, right);
+        }
+        if (difference == 2) {
+            Branch branch = (Branch) left;
+            if (branch.left.height >= branch.right.height) {
+                return new Branch(branch.left, new Branch(branch.right, right));
+            }
+            Branch inner = (Branch) branch.right;
+            return new Branch(new Branch(branch.left, inner.left), new Branch(inner.right, right));
+        }
+        if (difference == -2) {
+            Branch branch = (Branch) right;
+            if (branch.right.height >= branch.left.height) {
+                return new Branch(new Branch(left, branch.left), branch.right);
+            }
+            Branch inner = (Branch) branch.left;
+            return new Branch(new Branch(left, inner.left), new Branch(inner.right, branch.right));
+        }
+        return new Branch(left, right);
+    }
+
+    /**
+     * Builds a balanced subtree of full leaves, only the last of which may be shorter.
+     */
+    private static Node build(Post[] posts, int from, int to) {
+        if (to - from <= CHUNK) {
+            return new Leaf(Arrays.copyOfRange(posts, from, to));
+        }
+        int leaves = (to - from + CHUNK - 1) / CHUNK;
+        int middle = from + leaves / 2 * CHUNK;
+        return balance(build(posts, from, middle), build(posts, middle, to));
+    }
+
+    private static void copyInto(Node node, Post[] target, int offset) {
+        if (node instanceof Leaf leaf) {
+            System.arraycopy(leaf.posts, 0, target, offset, leaf.posts.length);
+        } else {
+            Branch branch = (Branch) node;
+            copyInto(branch.left, target, offset);
+            copyInto(branch.right, target, offset + branch.left.size);
+        }
+    }
+
+    private abstract static class Node {
+        final int size;
+        final int height;
+        final long lastId;
+
+        Node(int size, int height, long lastId) {
+            this.size = size;
+            this.height = height;
+            this.lastId = lastId;
+        }
+    }
+
+    private static final class Leaf extends Node {
+        final Post[] posts;
+
+        Leaf(Post[] posts) {
+            super(posts.length, 0, maxId(posts));
+            this.posts = posts;
+        }
+
+        private static long maxId(Post[] posts) {
+            long max = Long.MIN_VALUE;
+            for (Post post : posts) {
+                max = Math.max(max, post.getId());
+            }
+            return max;
+        }
+    }
+
+    private static final class Branch extends Node {
+        final Node left;
+        final Node right;
+
+        Branch(Node left, Node right) {
+            super(left.size + right.size, 1 + Math.max(left.height, right.height), Math.max(left.lastId, right.lastId));
+            this.left = left;
+            this.right = right;
+        }
+    }
+}
@@ -5,21 +5,142 @@
 
 package blog.model;
 import lombok.Getter;
-import lombok.Setter;
-import lombok.AllArgsConstructor;
 /**
  * The Post class represents a blog post with a title, author, and content.
+ *
+ * Posts are immutable values: a modification creates a new post with
+ * {@link #withTitle(String)} or {@link #withContent(String)}, which shares the unchanged
+ * fields with the original. Posts can therefore be shared between threads and
+ * repository versions without copying.
+ *
+ * A post stored in a {@link PostRepository} has a unique, positive id assigned by the
+ * repository; a post that was only created has id 0. The creation time is taken when
+ * the post is created and kept by all later versions of it.
+ *
+ * To keep large repositories small, the author is stored as an id into a shared
+ * dictionary of author names and the content as compact UTF-8 or deflated bytes.
+ * Both are decoded on access. A short one-line preview of the content is cached for
+ * views that only display the beginning of it.
  * 
  * @author marcelkuczek
  * @version 1.0
  */
-@Getter
-@Setter
-@AllArgsConstructor
 public class Post {
-    private String title;   
-    private String author;  
-    private String content; 
+    @Getter
+    private final long id;
+    @Getter
+    private final long createdAt;
+    @Getter
+    private final String title;
+    private final int authorId;
+    private final byte[] content;
+    private String contentPreview;
+
+    /**
+     * The maximum length of the content preview, in characters.
+     */
+    public static final int PREVIEW_LENGTH = 80;
+
+    /**
+     * Creates a post.
+     *
+     * @param title The title of the post
+     * @param author The author of the post
+     * @param content The content of the post
+     */
+    public Post(String title, String author, String content) {
+        this(0, System.currentTimeMillis(), title, author, content);
+    }
+
+    /**
+     * Recreates a stored post, e.g. from a journal or snapshot.
+     *
+     * @param id The id of the post, or 0 to let the repository assign one
+     * @param createdAt The creation time, in milliseconds since the epoch
+     * @param title The title of the post
+     * @param author The author of the post
+     * @param content The content of the post
+     */
+    Post(long id, long createdAt, String title, String author, String content) {
+        this(id, createdAt, title, AuthorDictionary.idOf(author), ContentCodec.encode(content));
+    }
+
+    private Post(long id, long createdAt, String title, int authorId, byte[] content) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.title = title;
+        this.authorId = authorId;
+        this.content = content;
+    }
+
+    /**
+     * Returns a copy of this post with the given id; used by the repository when
+     * storing the post.
+     *
+     * @param id The new id
+     * @return The post with the id
+     */
+    Post withId(long id) {
+        Post post = new Post(id, createdAt, title, authorId, content);
+        post.contentPreview = contentPreview;
+        return post;
+    }
+
+    /**
+     * Returns a copy of this post with a different title.
+     *
+     * @param title The new title
+     * @return The modified post
+     */
+    public Post withTitle(String title) {
+        Post post = new Post(id, createdAt, title, authorId, content);
+        post.contentPreview = contentPreview;
+        return post;
+    }
+
+    /**
+     * Returns a copy of this post with a different content.
+     *
+     * @param content The new content
+     * @return The modified post
+     */
+    public Post withContent(String content) {
+        return new Post(id, createdAt, title, authorId, ContentCodec.encode(content));
+    }
+
+    /**
+     * Returns the author of the post.
+     *
+     * @return The author's name
+     */
+    public String getAuthor() {
+        return AuthorDictionary.nameOf(authorId);
+    }
+
+    /**
+     * Returns the content of the post, decoding it from its compact form.
+     *
+     * @return The content
+     */
+    public String getContent() {
+        return ContentCodec.decode(content);
+    }
+
+    /**
+     * Returns the beginning of the content as a single line of at most
+     * {@link #PREVIEW_LENGTH} characters. The preview is computed on first use and
+     * reused afterwards, so rendering it does not allocate.
+     *
+     * @return The content preview
+     */
+    public String getContentPreview() {
+        String preview = contentPreview;
+        if (preview == null) {
+            preview = ContentCodec.preview(content, PREVIEW_LENGTH);
+            contentPreview = preview;
+        }
+        return preview;
+    }
 
     /**
      * Returns a string representation of the post.
@@ -28,6 +149,6 @@ public class Post {
      */
     @Override
     public String toString() {
-        return "Title: " + title + "\nAuthor: " + author + "\nContent: " + content + "\n";
+        return "Title: " + title + "\nAuthor: " + getAuthor() + "\nContent: " + getContent() + "\n";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,131 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The PostBatch class collects changes to one or many posts that
+ * {@link PostRepository#update(PostBatch)} applies together, e.g.
+ * {@code new PostBatch().modifyTitle(id, "Nowy tytuł").modifyContent(id, "Nowa treść")}.
+ *
+ * Changes refer to posts by id and are applied in the order they were added, so a
+ * post may be changed several times and finally deleted. The batch is applied
+ * atomically: either all changes take effect, published as one change event and
+ * written to the journal as one record, or none does.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public final class PostBatch {
+
+    /**
+     * The kind of a change.
+     */
+    enum Kind {
+        TITLE, CONTENT, DELETE
+    }
+
+    /**
+     * One change of a batch.
+     *
+     * @param kind What the change does
+     * @param id The id of the changed post
+     * @param value The new title or content; null for deletions
+     */
+    record Operation(Kind kind, long id, String value) {}
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    /**
+     * Adds a change of a post's title.
+     *
+     * @param id The id of the post
+     * @param title The new title
+     * @return This batch
+     * @throws IllegalArgumentException if the title is null or empty
+     */
+    public PostBatch modifyTitle(long id, String title) {
+        operations.add(new Operation(Kind.TITLE, id, requireText(title, "title")));
+        return this;
+    }
+
+    /**
+     * Adds a change of a post's content.
+     *
+     * @param id The id of the post
+     * @param content The new content
+     * @return This batch
+     * @throws IllegalArgumentException if the content is null or empty
+     */
+    public PostBatch modifyContent(long id, String content) {
+        operations.add(new Operation(Kind.CONTENT, id, requireText(content, "content")));
+        return this;
+    }
+
+    /**
+     * Adds a change of a post's title or content.
+     *
+     * @param id The id of the post
+     * @param newValue The new title or content
+     * @param type Which field to change
+     * @return This batch
+     * @throws IllegalArgumentException if the new value is null or empty
+     */
+    public PostBatch modify(long id, String newValue, PostRepository.ModificationType type) {
+        return type == PostRepository.ModificationType.TITLE ? modifyTitle(id, newValue) : modifyContent(id, newValue);
+    }
+
+    /**
+     * Adds the deletion of a post.
+     *
+     * @param id The id of the post
+     * @return This batch
+     */
+    public PostBatch delete(long id) {
+        operations.add(new Operation(Kind.DELETE, id, null));
+        return this;
+    }
+
+    /**
+     * Returns the number of changes in the batch.
+     *
+     * @return The number of changes
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    /**
+     * Returns whether the batch holds no changes.
+     *
+     * @return Whether the batch is empty
+     */
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    /**
+     * Checks a new title or content. Like the forms, a batch never stores an empty
+     * value, so applying a validated batch cannot fail part-way.
+     */
+    private static String requireText(String value, String field) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("The new " + field + " must not be empty.");
+        }
+        return value;
+    }
+
+    /**
+     * Returns the changes, in the order they were added.
+     *
+     * @return The changes
+     */
+    List<Operation> operations() {
+        return operations;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * The PostChangeEvent class describes a single change made to a PostRepository.
+ *
+ * A bulk insert is reported as one {@link Type#BATCH_ADDED} event carrying all inserted
+ * posts; they occupy the consecutive indexes starting at {@link #getIndex()}.
+ *
+ * Posts are immutable, so a modification replaces the post at {@link #getIndex()}; the
+ * replaced post is available as {@link #getPrevious()}. Every event also carries the
+ * immutable snapshot of all posts right after the change, so a consumer applying the
+ * events later, e.g. on another thread, reads a version consistent with the events it
+ * has seen so far.
+ *
+ * A {@link PostBatch} is reported as one {@link Type#BATCH_UPDATED} event whose
+ * {@link #getChanges()} are the REMOVED, TITLE_CHANGED and CONTENT_CHANGED events of the
+ * batch's posts; their indexes are valid when the changes are applied in order.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+@Getter
+public class PostChangeEvent {
+
+    /**
+     * The kind of change.
+     */
+    public enum Type {
+        ADDED, REMOVED, TITLE_CHANGED, CONTENT_CHANGED, BATCH_ADDED, BATCH_UPDATED
+    }
+
+    private final Type type;
+    private final Post post;
+    private final int index;
+    private final Post previous;
+    private final List<Post> posts;
+    private final PersistentPostList snapshot;
+    private final List<PostChangeEvent> changes;
+
+    private PostChangeEvent(Type type, Post post, int index, Post previous, List<Post> posts,
+            PersistentPostList snapshot, List<PostChangeEvent> changes) {
+        this.type = type;
+        this.post = post;
+        this.index = index;
+        this.previous = previous;
+        this.posts = posts;
+        this.snapshot = snapshot;
+        this.changes = changes;
+    }
+
+    /**
+     * Creates an {@link Type#ADDED} event.
+     *
+     * @param post The added post
+     * @param index The index of the added post
+     * @param snapshot The posts right after the change
+     * @return The event
+     */
+    public static PostChangeEvent added(Post post, int index, PersistentPostList snapshot) {
+        return new PostChangeEvent(Type.ADDED, post, index, null, null, snapshot, null);
+    }
+
+    /**
+     * Creates a {@link Type#REMOVED} event.
+     *
+     * @param post The removed post
+     * @param index The index the post was removed from
+     * @param snapshot The posts right after the change, or null for a change inside a batch
+     * @return The event
+     */
+    public static PostChangeEvent removed(Post post, int index, PersistentPostList snapshot) {
+        return new PostChangeEvent(Type.REMOVED, post, index, null, null, snapshot, null);
+    }
+
+    /**
+     * Creates a {@link Type#TITLE_CHANGED} or {@link Type#CONTENT_CHANGED} event.
+     *
+     * @param type The kind of modification
+     * @param post The modified post
+     * @param index The index of the replaced post
+     * @param previous The replaced post
+     * @param snapshot The posts right after the change, or null for a change inside a batch
+     * @return The event
+     * @throws IllegalArgumentException if the type is not a modification
+     */
+    public static PostChangeEvent replaced(Type type, Post post, int index, Post previous,
+            PersistentPostList snapshot) {
+        if (type != Type.TITLE_CHANGED && type != Type.CONTENT_CHANGED) {
+            throw new IllegalArgumentException("Not a modification: " + type);
+        }
+        return new PostChangeEvent(type, post, index, previous, null, snapshot, null);
+    }
+
+    /**
+     * Creates a {@link Type#BATCH_ADDED} event.
+     *
+     * @param posts The added posts, in index order; must not be empty
+     * @param index The index of the first added post
+     * @param snapshot The posts right after the change
+     * @return The event
+     */
+    public static PostChangeEvent batchAdded(List<Post> posts, int index, PersistentPostList snapshot) {
+        return new PostChangeEvent(Type.BATCH_ADDED, posts.get(0), index, null, posts, snapshot, null);
+    }
+
+    /**
+     * Creates a {@link Type#BATCH_UPDATED} event.
+     *
+     * @param changes The events of the batch's posts, in the order they were applied;
+     *                must not be empty
+     * @param snapshot The posts right after the whole batch
+     * @return The event
+     */
+    public static PostChangeEvent batchUpdated(List<PostChangeEvent> changes, PersistentPostList snapshot) {
+        return new PostChangeEvent(Type.BATCH_UPDATED, null, changes.get(0).getIndex(), null, null, snapshot,
+                List.copyOf(changes));
+    }
+}
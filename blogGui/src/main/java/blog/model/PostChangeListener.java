@@ -0,0 +1,27 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+/**
+ * The PostChangeListener interface is implemented by everything that needs to follow
+ * the changes of a PostRepository, such as views, caches and indexes.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface PostChangeListener {
+
+    /**
+     * Called after a post was added, removed or modified. Events are delivered on the
+     * thread that made the change, after the repository lock was released, one at a
+     * time and in the order the changes were made.
+     *
+     * @param event The change; its index is the post's position in the repository
+     *              (for a removal, the position it had before it was removed)
+     */
+    void postChanged(PostChangeEvent event);
+}
@@ -0,0 +1,209 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+
+/**
+ * The PostExporter class streams all posts of a PostRepository into a JSONL or CSV file,
+ * in the formats read by {@link PostImporter}.
+ *
+ * The posts are taken from one immutable snapshot of the repository, obtained in O(1),
+ * and encoded page by page straight into a single direct ByteBuffer, which is written to a FileChannel whenever it fills up; no
+ * copy of the post list is made, and JSON records are escaped by {@link JsonCodec} into
+ * one reused StringBuilder instead of new strings. The file is written under a temporary name and moved into place when complete, so a cancelled or failed
+ * export never leaves a partial file behind.
+ *
+ * The file holds exactly the posts at the start of the export; changes made while it
+ * runs are not included.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public final class PostExporter {
+
+    private static final int PAGE_SIZE = 4096;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private PostExporter() {}
+
+    /**
+     * Exports all posts, choosing the format by the file's extension: {@code .csv} is
+     * written as CSV with a header row, everything else as JSONL. Runs on the calling thread.
+     *
+     * @param repository The repository to export
+     * @param file The destination file
+     * @param progress Receives the fraction of posts written so far, once per page
+     * @param cancelled Polled once per page; the export stops when it returns true
+     * @return The number of exported posts
+     * @throws IOException if the file cannot be written
+     * @throws CancellationException if the export was cancelled
+     */
+    public static long exportFile(PostRepository repository, Path file, DoubleConsumer progress,
+            BooleanSupplier cancelled) throws IOException {
+        boolean csv = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        long exported = 0;
+        boolean complete = false;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Encoder out = new Encoder(channel);
+            StringBuilder line = new StringBuilder(256);
+            if (csv) {
+                out.ascii("title,author,content\n");
+            }
+            PersistentPostList snapshot = repository.getallPosts();
+            int total = Math.max(1, snapshot.size());
+            for (int from = 0; from < snapshot.size(); from += PAGE_SIZE) {
+                List<Post> page = snapshot.subList(from, Math.min(snapshot.size(), from + PAGE_SIZE));
+                if (cancelled.getAsBoolean()) {
+                    throw new CancellationException("Export cancelled.");
+                }
+                for (Post post : page) {
+                    if (csv) {
+                        writeCsv(out, post);
+                    } else {
+                        writeJson(out, line, post);
+                    }
+                }
+                exported += page.size();
+                progress.accept(Math.min(1.0, (double) exported / total));
+            }
+            out.flush();
+            channel.force(true);
+            complete = true;
+        } finally {
+            if (!complete) {
+                Files.deleteIfExists(temporary);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        progress.accept(1.0);
+        return exported;
+    }
+
+    private static void writeJson(Encoder out, StringBuilder line, Post post) throws IOException {
+        line.setLength(0);
+        line.append("{\"title\":");
+        JsonCodec.appendString(line, post.getTitle());
+        line.append(",\"author\":");
+        JsonCodec.appendString(line, post.getAuthor());
+        line.append(",\"content\":");
+        JsonCodec.appendString(line, post.getContent());
+        line.append("}\n");
+        out.text(line);
+    }
+
+    private static void writeCsv(Encoder out, Post post) throws IOException {
+        out.csvField(post.getTitle());
+        out.ascii(",");
+        out.csvField(post.getAuthor());
+        out.ascii(",");
+        out.csvField(post.getContent());
+        out.ascii("\n");
+    }
+
+    /**
+     * Encodes text as UTF-8 into a reused direct buffer that is drained into the channel.
+     */
+    private static final class Encoder {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Encoder(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void ascii(String text) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                put((byte) text.charAt(i));
+            }
+        }
+
+        void text(CharSequence text) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                i = utf8(text, i);
+            }
+        }
+
+        void csvField(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                for (int i = 0; i < value.length(); i++) {
+                    i = utf8(value, i);
+                }
+                return;
+            }
+            put((byte) '"');
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) == '"') {
+                    put((byte) '"');
+                }
+                i = utf8(value, i);
+            }
+            put((byte) '"');
+        }
+
+        /**
+         * Writes the character at the given index as UTF-8 and returns the index of its
+         * last char, which is the next one for a surrogate pair.
+         */
+        private int utf8(CharSequence value, int i) throws IOException {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                put((byte) c);
+            } else if (c < 0x800) {
+                put((byte) (0xC0 | c >> 6));
+                put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                put((byte) (0xF0 | codePoint >> 18));
+                put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                put((byte) '?');
+            } else {
+                put((byte) (0xE0 | c >> 12));
+                put((byte) (0x80 | c >> 6 & 0x3F));
+                put((byte) (0x80 | c & 0x3F));
+            }
+            return i;
+        }
+
+        private void put(byte b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put(b);
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
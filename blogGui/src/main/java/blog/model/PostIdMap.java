@@ -0,0 +1,146 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+/**
+ * The PostIdMap class maps post ids to posts with open addressing over a primitive
+ * {@code long[]} of keys, so neither the keys nor the map entries are objects: a lookup
+ * hashes the id, probes the key array linearly and reads the post from the parallel
+ * value array at the same slot.
+ *
+ * Id 0 marks a free slot and cannot be stored. Removals shift the following entries of
+ * the probe sequence back instead of leaving tombstones, so lookups stay short however
+ * many posts were removed. The table doubles once it is half full.
+ *
+ * The map is not thread-safe; PostRepository only changes it under its write lock.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+final class PostIdMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys = new long[MIN_CAPACITY];
+    private Post[] values = new Post[MIN_CAPACITY];
+    private int size;
+
+    /**
+     * Returns the post with the given id.
+     *
+     * @param id The post id
+     * @return The post, or null if no post has the id
+     */
+    Post get(long id) {
+        long[] keys = this.keys;
+        Post[] values = this.values;
+        int mask = keys.length - 1;
+        for (int slot = slot(id, mask); ; slot = (slot + 1) & mask) {
+            long key = keys[slot];
+            if (key == id) {
+                return values[slot];
+            }
+            if (key == 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Maps the id to the post, replacing an earlier mapping.
+     *
+     * @param id The post id; must not be 0
+     * @param post The post
+     */
+    void put(long id, Post post) {
+        if (id == 0) {
+            throw new IllegalArgumentException("Post id 0 cannot be stored.");
+        }
+        if (2 * (size + 1) > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = slot(id, mask);
+        while (keys[slot] != 0 && keys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == 0) {
+            keys[slot] = id;
+            size++;
+        }
+        values[slot] = post;
+    }
+
+    /**
+     * Removes the mapping of the given id.
+     *
+     * @param id The post id
+     * @return The removed post, or null if no post had the id
+     */
+    Post remove(long id) {
+        int mask = keys.length - 1;
+        int slot = slot(id, mask);
+        while (keys[slot] != id) {
+            if (keys[slot] == 0) {
+                return null;
+            }
+            slot = (slot + 1) & mask;
+        }
+        Post removed = values[slot];
+        // Backward-shift deletion: move later entries of the cluster into the gap when
+        // their home slot does not lie between the gap and their current slot.
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Returns the number of mapped ids.
+     *
+     * @return The size of the map
+     */
+    int size() {
+        return size;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Post[] oldValues = values;
+        long[] newKeys = new long[capacity];
+        Post[] newValues = new Post[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(oldKeys[i], mask);
+                while (newKeys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                newKeys[slot] = oldKeys[i];
+                newValues[slot] = oldValues[i];
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    /**
+     * Returns the home slot of an id: Fibonacci hashing spreads consecutive ids,
+     * which is how they are assigned, evenly over the table.
+     */
+    private static int slot(long id, int mask) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.DoubleConsumer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The PostImporter class streams posts from JSONL or CSV files into a PostRepository.
+ *
+ * The file is read line by line and the posts are inserted through
+ * {@link PostRepository#addPosts(List)} in batches of {@link #BATCH_SIZE}, so the memory
+ * used by an import does not depend on the size of the file. Like the Add Post form, the
+ * importer only accepts posts whose title, author and content are all non-empty; other
+ * records are skipped and counted.
+ *
+ * JSONL files hold one object per line with the string fields {@code title},
+ * {@code author} and {@code content}, parsed by {@link JsonCodec}. CSV files follow RFC 4180; if the first row names
+ * the columns it is used to find them, otherwise the columns are title, author and content.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public final class PostImporter {
+
+    /**
+     * The number of posts inserted into the repository at once.
+     */
+    public static final int BATCH_SIZE = 10_000;
+
+    private static final String[] COLUMNS = {"title", "author", "content"};
+
+    private PostImporter() {}
+
+    /**
+     * The outcome of an import.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Result {
+        private final long imported;
+        private final long rejected;
+    }
+
+    /**
+     * Imports a file, choosing the format by its extension: {@code .csv} is read as CSV,
+     * everything else as JSONL. Runs on the calling thread.
+     *
+     * @param repository The repository to add the posts to
+     * @param file The file to import
+     * @param progress Receives the fraction of the file read so far, once per batch
+     * @return The numbers of imported and rejected records
+     * @throws IOException if the file cannot be read
+     */
+    public static Result importFile(PostRepository repository, Path file, DoubleConsumer progress) throws IOException {
+        boolean csv = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+        long size = Math.max(1, Files.size(file));
+        try (CountingInputStream in = new CountingInputStream(Files.newInputStream(file));
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16)) {
+            Batcher batcher = new Batcher(repository, () -> progress.accept(Math.min(1.0, (double) in.count / size)));
+            if (csv) {
+                readCsv(reader, batcher);
+            } else {
+                readJsonLines(reader, batcher);
+            }
+            batcher.flush();
+            progress.accept(1.0);
+            return new Result(batcher.imported, batcher.rejected);
+        }
+    }
+
+    private static void readJsonLines(BufferedReader reader, Batcher batcher) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            Map<String, String> fields;
+            try {
+                fields = JsonCodec.parseObject(line);
+            } catch (IllegalArgumentException e) {
+                fields = Map.of();
+            }
+            batcher.accept(fields.get(COLUMNS[0]), fields.get(COLUMNS[1]), fields.get(COLUMNS[2]));
+        }
+    }
+
+    private static void readCsv(BufferedReader reader, Batcher batcher) throws IOException {
+        int[] columns = {0, 1, 2};
+        boolean firstRow = true;
+        List<String> row = new ArrayList<>(3);
+        while (readCsvRow(reader, row)) {
+            if (firstRow) {
+                firstRow = false;
+                int[] header = headerColumns(row);
+                if (header != null) {
+                    columns = header;
+                    continue;
+                }
+            }
+            if (row.size() == 1 && row.get(0).isEmpty()) {
+                continue;
+            }
+            if (row.size() <= Math.max(columns[0], Math.max(columns[1], columns[2]))) {
+                batcher.accept(null, null, null);
+            } else {
+                batcher.accept(row.get(columns[0]), row.get(columns[1]), row.get(columns[2]));
+            }
+        }
+    }
+
+    /**
+     * Returns the positions of the title, author and content columns if the row is a
+     * header naming all three, and null otherwise.
+     */
+    private static int[] headerColumns(List<String> row) {
+        int[] columns = new int[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            columns[i] = -1;
+            for (int j = 0; j < row.size(); j++) {
+                if (row.get(j).trim().equalsIgnoreCase(COLUMNS[i])) {
+                    columns[i] = j;
+                }
+            }
+            if (columns[i] < 0) {
+                return null;
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Reads the next CSV record into the given list. A quoted field may contain commas,
+     * doubled quotes and line breaks, in which case the record spans several lines.
+     *
+     * @return false at the end of the input
+     */
+    private static boolean readCsvRow(BufferedReader reader, List<String> row) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return false;
+        }
+        row.clear();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < line.length() && line.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                row.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        row.add(field.toString());
+        return true;
+    }
+
+    /**
+     * Validates records and collects the accepted ones into batches.
+     */
+    private static final class Batcher {
+
+        private final PostRepository repository;
+        private final Runnable onBatch;
+        private final List<Post> batch = new ArrayList<>(BATCH_SIZE);
+        private long imported;
+        private long rejected;
+
+        Batcher(PostRepository repository, Runnable onBatch) {
+            this.repository = repository;
+            this.onBatch = onBatch;
+        }
+
+        void accept(String title, String author, String content) {
+            if (title == null || author == null || content == null
+                    || title.isEmpty() || author.isEmpty() || content.isEmpty()) {
+                rejected++;
+                return;
+            }
+            batch.add(new Post(title, author, content));
+            if (batch.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!batch.isEmpty()) {
+                repository.addPosts(batch);
+                imported += batch.size();
+                batch.clear();
+            }
+            onBatch.run();
+        }
+    }
+
+    /**
+     * Input stream that counts the bytes read through it, for progress reporting.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
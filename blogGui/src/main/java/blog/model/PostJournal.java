@@ -0,0 +1,734 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import blog.metrics.Counter;
+import blog.metrics.MetricRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * The PostJournal class is an append-only, segmented log of the changes made to a
+ * PostRepository. Every add, delete and modify is written as one checksummed record.
+ * Added posts are recorded with their id and creation time, and deletes and modifies
+ * refer to the post by id. A {@link PostBatch} is written as one record holding all of
+ * its changes, so a crash never leaves part of a batch in the log. Records written before posts had ids, which refer to posts
+ * by title, are still replayed; their posts are assigned new ids.
+ *
+ * Appends only encode the record and hand it to a background writer, which gathers
+ * everything that queued up since its last round into one buffer, writes it and makes
+ * it durable with a single fsync (group commit). Sealed segments are periodically rewritten by a background
+ * compaction into one segment holding only the live posts. Only a failed write or fsync
+ * makes the journal refuse further appends; a failed compaction leaves the sealed
+ * segments as they were, is logged and counted as {@code journal.compactionFailures},
+ * and is tried again when the next segment is sealed.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public class PostJournal implements AutoCloseable {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{10})\\.log");
+    private static final long SEGMENT_SIZE = 16L * 1024 * 1024;
+    private static final int SEGMENTS_BEFORE_COMPACTION = 4;
+
+    private static final byte ADD = 1;
+    private static final byte DELETE = 2;
+    private static final byte MODIFY_TITLE = 3;
+    private static final byte MODIFY_CONTENT = 4;
+    private static final byte RESET = 5;
+    private static final byte ADD_WITH_ID = 6;
+    private static final byte DELETE_ID = 7;
+    private static final byte MODIFY_TITLE_ID = 8;
+    private static final byte MODIFY_CONTENT_ID = 9;
+    private static final byte BATCH = 10;
+
+    /**
+     * The size of the buffer the records of one writer round are gathered in; a round
+     * is written with one system call per filled buffer.
+     */
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * The size of the buffer segments are read through during replay and compaction.
+     */
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+
+    private static final Object SHUTDOWN = new Object();
+
+    private static final System.Logger LOG = System.getLogger(PostJournal.class.getName());
+    private static final Counter COMPACTION_FAILURES = MetricRegistry.getDefault().counter("journal.compactionFailures");
+
+    private final Path directory;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final ExecutorService compactor;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private FileChannel activeChannel;
+    private long activeSegment;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    /**
+     * Opens the journal in the given directory, creating it if necessary.
+     * Appends always go to a new segment, so a torn tail left by a crash is never extended.
+     *
+     * @param directory The data directory holding the segment files
+     * @throws IOException if the directory or the new segment cannot be created
+     */
+    PostJournal(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        List<Long> segments = listSegments();
+        activeSegment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1;
+        activeChannel = openSegment(activeSegment);
+
+        compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "post-journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer = new Thread(this::writeLoop, "post-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Replays the journal into the given repository. Replay starts at the newest
+     * compacted segment; older segments left behind by an interrupted compaction are skipped.
+     *
+     * @param repository The empty repository to rebuild
+     * @throws IOException if a segment cannot be read
+     */
+    void replay(PostRepository repository) throws IOException {
+        List<Long> segments = listSegments();
+        segments.remove(Long.valueOf(activeSegment));
+        replay(segments, repository);
+    }
+
+    /**
+     * Records a newly added post.
+     *
+     * @param post The added post
+     */
+    void appendAdd(Post post) {
+        append(encodeAdd(post));
+    }
+
+    /**
+     * Records a batch of added posts; the batch is handed to the writer as one unit.
+     *
+     * @param posts The added posts, in order
+     */
+    void appendAdds(List<Post> posts) {
+        byte[][] records = new byte[posts.size()][];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = encodeAdd(posts.get(i));
+        }
+        append(records);
+    }
+
+    /**
+     * Records the deletion of a post.
+     *
+     * @param id The id of the deleted post
+     */
+    void appendDelete(long id) {
+        append(encode(DELETE_ID, new long[] {id}));
+    }
+
+    /**
+     * Records a modification of a post.
+     *
+     * @param id The id of the modified post
+     * @param newValue The new title or content
+     * @param type Which field was modified
+     */
+    void appendModify(long id, String newValue, PostRepository.ModificationType type) {
+        byte recordType = type == PostRepository.ModificationType.TITLE ? MODIFY_TITLE_ID : MODIFY_CONTENT_ID;
+        append(encode(recordType, new long[] {id}, newValue));
+    }
+
+    /**
+     * Records a batch of changes as a single record, which replay applies as one batch.
+     *
+     * @param operations The changes of the batch, in order
+     */
+    void appendBatch(List<PostBatch.Operation> operations) {
+        byte[][] encoded = new byte[operations.size()][];
+        int length = 1 + 4;
+        for (int i = 0; i < encoded.length; i++) {
+            PostBatch.Operation operation = operations.get(i);
+            long[] id = {operation.id()};
+            encoded[i] = switch (operation.kind()) {
+                case TITLE -> encode(MODIFY_TITLE_ID, id, operation.value());
+                case CONTENT -> encode(MODIFY_CONTENT_ID, id, operation.value());
+                case DELETE -> encode(DELETE_ID, id);
+            };
+            length += 4 + encoded[i].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length).put(BATCH).putInt(encoded.length);
+        for (byte[] operation : encoded) {
+            buffer.putInt(operation.length).put(operation);
+        }
+        append(buffer.array());
+    }
+
+    /**
+     * Blocks until every record appended so far has been written and fsynced.
+     *
+     * @throws IOException if the writer failed to persist a record
+     */
+    public void sync() throws IOException {
+        CompletableFuture<Void> barrier = new CompletableFuture<>();
+        queue.add(barrier);
+        try {
+            barrier.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the journal.", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Journal write failed.", e.getCause());
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Flushes all pending records and stops the writer and compaction threads.
+     *
+     * @throws IOException if the pending records could not be persisted
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(SHUTDOWN);
+        }
+        compactor.shutdown();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        activeChannel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Queues a record for the writer, or throws if the journal can no longer take it.
+     * Synchronized with {@link #close()}, so a record is never queued behind the
+     * shutdown marker and silently dropped.
+     */
+    private synchronized void append(Object record) {
+        if (failure != null) {
+            throw new UncheckedIOException("Journal is no longer writable.", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Journal is closed.");
+        }
+        queue.add(record);
+    }
+
+    /**
+     * Writer thread body: drains everything queued since the last round, writes it
+     * in order through one buffer, fsyncs once and then releases the sync barriers of
+     * that round.
+     */
+    private void writeLoop() {
+        List<Object> batch = new ArrayList<>();
+        List<byte[]> records = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch);
+            List<CompletableFuture<Void>> barriers = new ArrayList<>();
+            try {
+                for (Object item : batch) {
+                    if (item instanceof byte[] record) {
+                        records.add(record);
+                    } else if (item instanceof byte[][] group) {
+                        records.addAll(Arrays.asList(group));
+                    } else if (item == SHUTDOWN) {
+                        running = false;
+                    } else {
+                        @SuppressWarnings("unchecked")
+                        CompletableFuture<Void> barrier = (CompletableFuture<Void>) item;
+                        barriers.add(barrier);
+                    }
+                }
+                write(activeChannel, records, writeBuffer);
+                activeChannel.force(false);
+                if (running && activeChannel.size() >= SEGMENT_SIZE) {
+                    rollSegment();
+                }
+                barriers.forEach(barrier -> barrier.complete(null));
+            } catch (IOException e) {
+                failure = e;
+                barriers.forEach(barrier -> barrier.completeExceptionally(e));
+            }
+            batch.clear();
+            records.clear();
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        activeChannel.close();
+        activeSegment++;
+        activeChannel = openSegment(activeSegment);
+        if (listSegments().size() - 1 >= SEGMENTS_BEFORE_COMPACTION && compacting.compareAndSet(false, true)) {
+            long lastSealed = activeSegment - 1;
+            compactor.execute(() -> {
+                try {
+                    compact(lastSealed);
+                } catch (IOException | RuntimeException e) {
+                    // Compaction only writes a side file, so the live segments are intact
+                    // and the journal stays writable; the next roll tries again.
+                    COMPACTION_FAILURES.increment();
+                    LOG.log(System.Logger.Level.WARNING, "Journal compaction failed; it is retried after the next segment.", e);
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Rewrites all sealed segments up to and including the given one into a single
+     * segment that starts with a reset record followed by the live posts. The reset
+     * record holds the next free id, so ids of posts deleted before the compaction are
+     * not reused after a replay.
+     *
+     * The segments are streamed twice and never held in memory: the first pass finds the
+     * deleted posts and the last title and content change of every post, the second
+     * copies the additions of the live posts and those last changes. Segments that still
+     * hold records from before posts had ids, which refer to posts by title, are
+     * compacted once by replaying them instead.
+     *
+     * @param lastSealed The number of the newest sealed segment to compact
+     * @throws IOException if the segments cannot be read or the result cannot be written
+     */
+    private void compact(long lastSealed) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        for (long segment : listSegments()) {
+            if (segment <= lastSealed) {
+                segments.add(segment);
+            }
+        }
+        List<Long> replayed = segments.subList(replayStart(segments), segments.size());
+        Compaction compaction = new Compaction();
+        for (long segment : replayed) {
+            readSegment(segmentPath(segment), record -> forEachChange(record, compaction::scan));
+        }
+
+        Path compacted = directory.resolve(segmentName(lastSealed) + ".compacting");
+        try (FileChannel channel = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            RecordWriter out = new RecordWriter(channel);
+            if (compaction.legacy) {
+                PostRepository live = PostRepository.empty();
+                replay(segments, live);
+                out.add(encode(RESET, new long[] {live.nextId()}));
+                for (Post post : live.getallPosts()) {
+                    out.add(encodeAdd(post));
+                }
+            } else {
+                out.add(encode(RESET, new long[] {compaction.nextId}));
+                for (long segment : replayed) {
+                    readSegment(segmentPath(segment), record -> forEachChange(record, change -> {
+                        if (compaction.keep(change)) {
+                            out.add(change);
+                        }
+                    }));
+                }
+            }
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(compacted);
+            throw e;
+        }
+        Files.move(compacted, segmentPath(lastSealed), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        for (long segment : segments) {
+            if (segment < lastSealed) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+    }
+
+    private void replay(List<Long> segments, PostRepository repository) throws IOException {
+        // The next free id saved by a compaction is reserved once the posts following
+        // it are back, since they were added with smaller ids.
+        long[] reserved = {0};
+        for (long segment : segments.subList(replayStart(segments), segments.size())) {
+            readSegment(segmentPath(segment), record -> {
+                if (record[0] == RESET && record.length >= 9) {
+                    reserved[0] = Math.max(reserved[0], ByteBuffer.wrap(record).getLong(1));
+                } else {
+                    apply(record, repository);
+                }
+            });
+        }
+        repository.reserveIds(reserved[0]);
+    }
+
+    /**
+     * Returns the index of the newest segment starting with a reset record, where replay
+     * starts; older segments were left behind by an interrupted compaction.
+     */
+    private int replayStart(List<Long> segments) throws IOException {
+        for (int i = segments.size() - 1; i > 0; i--) {
+            if (startsWithReset(segmentPath(segments.get(i)))) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean startsWithReset(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(9);
+            channel.read(header);
+            return !header.hasRemaining() && header.getInt(0) > 0 && header.get(8) == RESET;
+        }
+    }
+
+    private static void apply(byte[] record, PostRepository repository) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        byte type = buffer.get();
+        try {
+            switch (type) {
+                case ADD_WITH_ID -> repository.addPost(new Post(buffer.getLong(), buffer.getLong(),
+                        readString(buffer), readString(buffer), readString(buffer)));
+                case DELETE_ID -> repository.deletePost(buffer.getLong());
+                case MODIFY_TITLE_ID -> repository.modifyPost(buffer.getLong(), readString(buffer),
+                        PostRepository.ModificationType.TITLE);
+                case MODIFY_CONTENT_ID -> repository.modifyPost(buffer.getLong(), readString(buffer),
+                        PostRepository.ModificationType.CONTENT);
+                case BATCH -> repository.update(readBatch(buffer));
+                case ADD -> repository.addPost(new Post(readString(buffer), readString(buffer), readString(buffer)));
+                case DELETE -> repository.deletePost(readString(buffer));
+                case MODIFY_TITLE -> repository.modifyPost(readString(buffer), readString(buffer),
+                        PostRepository.ModificationType.TITLE);
+                case MODIFY_CONTENT -> repository.modifyPost(readString(buffer), readString(buffer),
+                        PostRepository.ModificationType.CONTENT);
+                default -> {
+                }
+            }
+        } catch (PostNotFoundException | IllegalArgumentException e) {
+            // The record was written after a successful change, so this only happens
+            // when the log was edited by hand; the change has nothing to apply to, or
+            // adds a post under an id that is already taken.
+        }
+    }
+
+    private static PostBatch readBatch(ByteBuffer buffer) {
+        PostBatch batch = new PostBatch();
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+            byte type = buffer.get();
+            long id = buffer.getLong();
+            switch (type) {
+                case MODIFY_TITLE_ID -> batch.modifyTitle(id, readString(buffer));
+                case MODIFY_CONTENT_ID -> batch.modifyContent(id, readString(buffer));
+                default -> batch.delete(id);
+            }
+            buffer.position(end);
+        }
+        return batch;
+    }
+
+    /**
+     * Streams the intact records of a segment to the handler, in order, through a
+     * bounded buffer, so replaying a segment never needs memory for all of it. Reading
+     * stops at the first truncated or corrupted record, which can only be the
+     * unacknowledged tail of a crashed write.
+     */
+    private static void readSegment(Path segment, RecordHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE).flip();
+            CRC32 crc = new CRC32();
+            while (fill(channel, buffer, 8)) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining() + channel.size() - channel.position()) {
+                    return;
+                }
+                // A record larger than the buffer is read into its array directly.
+                byte[] record = new byte[length];
+                int buffered = Math.min(length, buffer.remaining());
+                buffer.get(record, 0, buffered);
+                ByteBuffer rest = ByteBuffer.wrap(record, buffered, length - buffered);
+                while (rest.hasRemaining()) {
+                    if (channel.read(rest) < 0) {
+                        return;
+                    }
+                }
+                crc.reset();
+                crc.update(record);
+                if ((int) crc.getValue() != checksum) {
+                    return;
+                }
+                handler.accept(record);
+            }
+        }
+    }
+
+    /**
+     * Reads from the channel until the buffer holds at least the given number of bytes;
+     * returns false if the channel ends first.
+     */
+    private static boolean fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        try {
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            buffer.flip();
+        }
+    }
+
+    /**
+     * Passes each change of a record to the handler: the changes of a batch one by one,
+     * each encoded as the record of a single change, and any other record as it is.
+     */
+    private static void forEachChange(byte[] record, RecordHandler handler) throws IOException {
+        if (record[0] != BATCH) {
+            handler.accept(record);
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(record, 1, record.length - 1);
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getInt();
+            handler.accept(Arrays.copyOfRange(record, buffer.position(), buffer.position() + length));
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    /**
+     * Frames the records with their length and checksum and writes them in order,
+     * gathering them in the buffer so that many small records cost one system call.
+     * A record larger than the buffer is written on its own.
+     */
+    private static void write(FileChannel channel, List<byte[]> records, ByteBuffer buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        buffer.clear();
+        for (byte[] record : records) {
+            if (buffer.remaining() < 8 + record.length) {
+                drain(channel, buffer);
+            }
+            crc.reset();
+            crc.update(record);
+            if (buffer.remaining() < 8 + record.length) {
+                ByteBuffer frame = ByteBuffer.allocate(8);
+                frame.putInt(record.length).putInt((int) crc.getValue()).flip();
+                ByteBuffer[] parts = {frame, ByteBuffer.wrap(record)};
+                while (parts[1].hasRemaining()) {
+                    channel.write(parts);
+                }
+                continue;
+            }
+            buffer.putInt(record.length).putInt((int) crc.getValue()).put(record);
+        }
+        drain(channel, buffer);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Receives the records read from a segment.
+     */
+    @FunctionalInterface
+    private interface RecordHandler {
+        void accept(byte[] record) throws IOException;
+    }
+
+    /**
+     * Writes records to a channel in groups, so a compaction holds at most one group
+     * in memory.
+     */
+    private static final class RecordWriter {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        private final List<byte[]> records = new ArrayList<>();
+
+        RecordWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void add(byte[] record) throws IOException {
+            records.add(record);
+            if (records.size() == 4096) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            write(channel, records, buffer);
+            records.clear();
+        }
+    }
+
+    /**
+     * What a compaction learns about the sealed segments in its first pass. Changes are
+     * numbered in the order they were made, single changes and the changes of batches
+     * alike, so the second pass can tell the last change of each field of a post.
+     */
+    private static final class Compaction {
+
+        private final Set<Long> deleted = new HashSet<>();
+        private final Map<Long, Long> lastTitleChange = new HashMap<>();
+        private final Map<Long, Long> lastContentChange = new HashMap<>();
+        private long nextId = 1;
+        private boolean legacy;
+        private long scanned;
+        private long copied;
+
+        void scan(byte[] change) {
+            ByteBuffer buffer = ByteBuffer.wrap(change, 1, change.length - 1);
+            switch (change[0]) {
+                case RESET -> nextId = Math.max(nextId, change.length >= 9 ? buffer.getLong() : 0);
+                case ADD_WITH_ID -> nextId = Math.max(nextId, buffer.getLong() + 1);
+                case DELETE_ID -> deleted.add(buffer.getLong());
+                case MODIFY_TITLE_ID -> lastTitleChange.put(buffer.getLong(), scanned++);
+                case MODIFY_CONTENT_ID -> lastContentChange.put(buffer.getLong(), scanned++);
+                case ADD, DELETE, MODIFY_TITLE, MODIFY_CONTENT -> legacy = true;
+                default -> {
+                }
+            }
+        }
+
+        /**
+         * Returns whether the second pass copies a change: the addition of a live post,
+         * or the last change of a field of one. Must see the same changes as scan.
+         */
+        boolean keep(byte[] change) {
+            ByteBuffer buffer = ByteBuffer.wrap(change, 1, change.length - 1);
+            return switch (change[0]) {
+                case ADD_WITH_ID -> !deleted.contains(buffer.getLong());
+                case MODIFY_TITLE_ID -> isLast(lastTitleChange, buffer.getLong(), copied++);
+                case MODIFY_CONTENT_ID -> isLast(lastContentChange, buffer.getLong(), copied++);
+                default -> false;
+            };
+        }
+
+        private boolean isLast(Map<Long, Long> lastChange, long id, long change) {
+            Long last = lastChange.get(id);
+            return last != null && last == change && !deleted.contains(id);
+        }
+    }
+
+    private static byte[] encodeAdd(Post post) {
+        return encode(ADD_WITH_ID, new long[] {post.getId(), post.getCreatedAt()},
+                post.getTitle(), post.getAuthor(), post.getContent());
+    }
+
+    private static byte[] encode(byte type, long[] numbers, String... fields) {
+        byte[][] encoded = new byte[fields.length][];
+        int length = 1 + 8 * numbers.length;
+        for (int i = 0; i < fields.length; i++) {
+            encoded[i] = fields[i].getBytes(StandardCharsets.UTF_8);
+            length += 4 + encoded[i].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length).put(type);
+        for (long number : numbers) {
+            buffer.putLong(number);
+        }
+        for (byte[] field : encoded) {
+            buffer.putInt(field.length).put(field);
+        }
+        return buffer.array();
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private FileChannel openSegment(long segment) throws IOException {
+        return FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(segmentName(segment) + ".log");
+    }
+
+    private static String segmentName(long segment) {
+        return String.format("segment-%010d", segment);
+    }
+}
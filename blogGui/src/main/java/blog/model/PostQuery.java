@@ -0,0 +1,483 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * The PostQuery class is a filter over posts, composed from simple conditions with
+ * {@link #and(PostQuery)}, {@link #or(PostQuery)} and {@link #not()}, e.g.
+ * {@code PostQuery.author("Jan Kowalski").and(PostQuery.titleStartsWith("Re: "))}.
+ *
+ * A query only describes the filter; {@link PostRepository#query(PostQuery)} decides how
+ * to run it. Conditions on the id, the title and the author can be answered from the
+ * repository's indexes, all others are checked post by post. All text comparisons
+ * ignore case.
+ *
+ * Every condition carries a rough estimate of the share of posts it matches, which
+ * the repository uses for the conditions it has no exact numbers for, and of the
+ * relative cost of checking one post, which decides the order the conditions of a
+ * conjunction are checked in.
+ *
+ * Queries are values: two queries built from the same conditions are equal, so they
+ * can serve as keys of the {@link QueryResultCache}. Conditions with an arbitrary
+ * predicate are only equal if they use the same predicate object.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public abstract class PostQuery {
+
+    private PostQuery() {}
+
+    /**
+     * Matches the post with the given id.
+     *
+     * @param id The post id
+     * @return The query
+     */
+    public static PostQuery id(long id) {
+        return new IdEquals(id);
+    }
+
+    /**
+     * Matches the posts with exactly the given title.
+     *
+     * @param title The title
+     * @return The query
+     */
+    public static PostQuery title(String title) {
+        return new FieldEquals(Field.TITLE, title);
+    }
+
+    /**
+     * Matches the posts of the given author.
+     *
+     * @param author The author's name
+     * @return The query
+     */
+    public static PostQuery author(String author) {
+        return new FieldEquals(Field.AUTHOR, author);
+    }
+
+    /**
+     * Matches the posts whose title starts with the given prefix.
+     *
+     * @param prefix The prefix
+     * @return The query
+     */
+    public static PostQuery titleStartsWith(String prefix) {
+        return new Condition("title starts with '" + prefix + "'", null, 0.1, 1,
+                post -> post.getTitle().regionMatches(true, 0, prefix, 0, prefix.length()));
+    }
+
+    /**
+     * Matches the posts whose title contains the given text.
+     *
+     * @param text The text
+     * @return The query
+     */
+    public static PostQuery titleContains(String text) {
+        return new Condition("title contains '" + text + "'", null, 0.05, 2,
+                post -> containsIgnoreCase(post.getTitle(), text));
+    }
+
+    /**
+     * Matches the posts whose content contains the given text. The content is decoded
+     * for every post checked, which makes this the most expensive condition.
+     *
+     * @param text The text
+     * @return The query
+     */
+    public static PostQuery contentContains(String text) {
+        return new Condition("content contains '" + text + "'", null, 0.05, 20,
+                post -> containsIgnoreCase(post.getContent(), text));
+    }
+
+    /**
+     * Matches the posts created in the given interval.
+     *
+     * @param from The start of the interval, inclusive, in milliseconds since the epoch
+     * @param to The end of the interval, exclusive, in milliseconds since the epoch
+     * @return The query
+     */
+    public static PostQuery createdBetween(long from, long to) {
+        return new Condition("created in [" + from + ", " + to + ")", null, 0.25, 1,
+                post -> post.getCreatedAt() >= from && post.getCreatedAt() < to);
+    }
+
+    /**
+     * Matches the posts accepted by an arbitrary predicate. The predicate may be called
+     * concurrently from several threads.
+     *
+     * @param description How the condition is shown in explain output
+     * @param predicate The predicate
+     * @return The query
+     */
+    public static PostQuery where(String description, Predicate<? super Post> predicate) {
+        return new Condition(description, predicate, 0.5, 10, predicate);
+    }
+
+    /**
+     * Returns a query matching the posts matched by both queries.
+     *
+     * @param other The other query
+     * @return The conjunction
+     */
+    public PostQuery and(PostQuery other) {
+        List<PostQuery> parts = new ArrayList<>(conjuncts());
+        parts.addAll(other.conjuncts());
+        return new And(parts);
+    }
+
+    /**
+     * Returns a query matching the posts matched by either query.
+     *
+     * @param other The other query
+     * @return The disjunction
+     */
+    public PostQuery or(PostQuery other) {
+        return new Or(this, other);
+    }
+
+    /**
+     * Returns a query matching the posts not matched by this one.
+     *
+     * @return The negation
+     */
+    public PostQuery not() {
+        return new Not(this);
+    }
+
+    /**
+     * Tests whether the post matches.
+     *
+     * @param post The post
+     * @return Whether the post matches the query
+     */
+    public abstract boolean test(Post post);
+
+    /**
+     * Returns the estimated share of all posts matched, between 0 and 1.
+     *
+     * @return The estimated selectivity
+     */
+    abstract double selectivity();
+
+    /**
+     * Returns the estimated cost of testing one post, relative to comparing a title.
+     *
+     * @return The estimated cost
+     */
+    abstract double cost();
+
+    /**
+     * Returns the conditions combined by a conjunction, or this query alone.
+     *
+     * @return The conjuncts
+     */
+    List<PostQuery> conjuncts() {
+        return List.of(this);
+    }
+
+    /**
+     * The fields with an index in the repository.
+     */
+    enum Field {
+        TITLE, AUTHOR
+    }
+
+    /**
+     * A condition the repository answers from its id map.
+     */
+    static final class IdEquals extends PostQuery {
+        final long id;
+
+        IdEquals(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean test(Post post) {
+            return post.getId() == id;
+        }
+
+        @Override
+        double selectivity() {
+            return 0;
+        }
+
+        @Override
+        double cost() {
+            return 1;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdEquals other && other.id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id);
+        }
+
+        @Override
+        public String toString() {
+            return "id = " + id;
+        }
+    }
+
+    /**
+     * A condition the repository answers from its title or author index.
+     */
+    static final class FieldEquals extends PostQuery {
+        final Field field;
+        final String value;
+
+        FieldEquals(Field field, String value) {
+            this.field = field;
+            this.value = value;
+        }
+
+        @Override
+        public boolean test(Post post) {
+            return (field == Field.TITLE ? post.getTitle() : post.getAuthor()).equalsIgnoreCase(value);
+        }
+
+        @Override
+        double selectivity() {
+            return 0.01;
+        }
+
+        @Override
+        double cost() {
+            return 1;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof FieldEquals other && other.field == field
+                    && other.value.toLowerCase(Locale.ROOT).equals(value.toLowerCase(Locale.ROOT));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * field.hashCode() + value.toLowerCase(Locale.ROOT).hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return field.name().toLowerCase(Locale.ROOT) + " = '" + value + "'";
+        }
+    }
+
+    private static final class Condition extends PostQuery {
+        private final String description;
+        private final Object identity;
+        private final double selectivity;
+        private final double cost;
+        private final Predicate<? super Post> predicate;
+
+        /**
+         * Creates a condition; its identity is the predicate for arbitrary predicates and
+         * null for the built-in conditions, which are fully described by the description.
+         */
+        Condition(String description, Object identity, double selectivity, double cost, Predicate<? super Post> predicate) {
+            this.description = description;
+            this.identity = identity;
+            this.selectivity = selectivity;
+            this.cost = cost;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean test(Post post) {
+            return predicate.test(post);
+        }
+
+        @Override
+        double selectivity() {
+            return selectivity;
+        }
+
+        @Override
+        double cost() {
+            return cost;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Condition other && other.description.equals(description)
+                    && Objects.equals(other.identity, identity);
+        }
+
+        @Override
+        public int hashCode() {
+            return description.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    static final class And extends PostQuery {
+        private final List<PostQuery> parts;
+
+        And(List<PostQuery> parts) {
+            this.parts = List.copyOf(parts);
+        }
+
+        @Override
+        public boolean test(Post post) {
+            for (PostQuery part : parts) {
+                if (!part.test(post)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        double selectivity() {
+            double selectivity = 1;
+            for (PostQuery part : parts) {
+                selectivity *= part.selectivity();
+            }
+            return selectivity;
+        }
+
+        @Override
+        double cost() {
+            double cost = 0;
+            for (PostQuery part : parts) {
+                cost += part.cost();
+            }
+            return cost;
+        }
+
+        @Override
+        List<PostQuery> conjuncts() {
+            return parts;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof And other && other.parts.equals(parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return parts.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            List<String> described = new ArrayList<>(parts.size());
+            for (PostQuery part : parts) {
+                described.add(part instanceof Or ? "(" + part + ")" : part.toString());
+            }
+            return String.join(" AND ", described);
+        }
+    }
+
+    private static final class Or extends PostQuery {
+        private final PostQuery left;
+        private final PostQuery right;
+
+        Or(PostQuery left, PostQuery right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(Post post) {
+            return left.test(post) || right.test(post);
+        }
+
+        @Override
+        double selectivity() {
+            return Math.min(1, left.selectivity() + right.selectivity());
+        }
+
+        @Override
+        double cost() {
+            return left.cost() + right.cost();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Or other && other.left.equals(left) && other.right.equals(right);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * left.hashCode() + right.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return left + " OR " + right;
+        }
+    }
+
+    private static final class Not extends PostQuery {
+        private final PostQuery query;
+
+        Not(PostQuery query) {
+            this.query = query;
+        }
+
+        @Override
+        public boolean test(Post post) {
+            return !query.test(post);
+        }
+
+        @Override
+        double selectivity() {
+            return 1 - query.selectivity();
+        }
+
+        @Override
+        double cost() {
+            return query.cost();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Not other && other.query.equals(query);
+        }
+
+        @Override
+        public int hashCode() {
+            return ~query.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "NOT (" + query + ")";
+        }
+    }
+
+    /**
+     * Searches case-insensitively without lower-casing, and so copying, the text.
+     */
+    private static boolean containsIgnoreCase(String text, String part) {
+        int last = text.length() - part.length();
+        for (int i = 0; i <= last; i++) {
+            if (text.regionMatches(true, i, part, 0, part.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -5,103 +5,1080 @@
 
 package blog.model;
 
+import blog.metrics.Counter;
+import blog.metrics.LatencyHistogram;
+import blog.metrics.MetricRegistry;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 /**
  * The PostRepository class is responsible for managing a collection of blog posts.
  * It provides methods to add, delete, modify, and retrieve posts by author.
- * 
+ *
+ * Every stored post has a unique id, assigned in increasing order when it is added.
+ * Posts are additionally kept in case-insensitive hash indexes on title and author and
+ * in a primitive {@link PostIdMap} by id, so lookups by any of them do not need to scan
+ * the whole collection. Deleting or modifying a post by id finds it in O(1) and its
+ * position in the post list in O(log n).
+ *
+ * A repository opened with {@link #open(Path)} is persistent: every change is
+ * recorded in a {@link PostJournal} under the data directory and replayed on the next open.
+ * A change is handed to the journal before it is applied, so once the journal has
+ * failed or was closed, writes throw and leave the posts, the indexes and the listeners
+ * as they were instead of diverging from the journal.
+ *
+ * Every change is published to the registered {@link PostChangeListener}s, so views
+ * and other consumers can apply it incrementally instead of reloading all posts.
+ *
+ * The posts are kept in a persistent list: every write publishes a new immutable
+ * version that shares all unchanged parts with the previous one, and
+ * {@link #getallPosts()} returns the current version in O(1) without copying or
+ * locking. Lookups in the title and author indexes first run as optimistic
+ * {@link StampedLock} reads and only take the read lock when a writer interfered;
+ * writers are serialized by the write lock. Change events are delivered after the
+ * write lock is released, in commit order, so listeners may read from the repository.
+ *
+ * Combined filters are expressed as a {@link PostQuery} and run by {@link #query(PostQuery)},
+ * which either fetches candidates from an index or scans a snapshot in parallel,
+ * whichever {@link #explain(PostQuery)} estimates to be cheaper. The results of queries and
+ * author lookups are kept in a {@link QueryResultCache}, from which every write drops
+ * exactly the results the changed posts belong to.
+ *
+ * A repository created with {@link #loading()} is usable at once and fills up while
+ * its posts are loaded in the background; writes wait until loading finished.
+ *
+ * The latency of every public operation is recorded in the default
+ * {@link MetricRegistry} under {@code repository.<method>}.
+ *
  * @author marcelkuczek
  * @version 1.0
  */
-public class PostRepository {
+public class PostRepository implements AutoCloseable {
 
-    private final List<Post> posts;
+    private static final MetricRegistry METRICS = MetricRegistry.getDefault();
+    private static final LatencyHistogram GET_POSTS_BY_AUTHOR = METRICS.histogram("repository.getPostsByAuthor");
+    private static final LatencyHistogram GET_ALL_POSTS = METRICS.histogram("repository.getallPosts");
+    private static final LatencyHistogram GET_POST_COUNT = METRICS.histogram("repository.getPostCount");
+    private static final LatencyHistogram GET_POSTS = METRICS.histogram("repository.getPosts");
+    private static final LatencyHistogram GET_POST = METRICS.histogram("repository.getPost");
+    private static final LatencyHistogram ADD_POST = METRICS.histogram("repository.addPost");
+    private static final LatencyHistogram ADD_POSTS = METRICS.histogram("repository.addPosts");
+    private static final LatencyHistogram DELETE_POST = METRICS.histogram("repository.deletePost");
+    private static final LatencyHistogram MODIFY_POST = METRICS.histogram("repository.modifyPost");
+    private static final LatencyHistogram UPDATE = METRICS.histogram("repository.update");
+    private static final LatencyHistogram QUERY = METRICS.histogram("repository.query");
+    private static final LatencyHistogram EXPLAIN = METRICS.histogram("repository.explain");
+    private static final LatencyHistogram QUERY_INDEX = METRICS.histogram("repository.queryIndex");
+    private static final Counter NOT_FOUND = METRICS.counter("repository.notFound");
+    private static final Counter INDEX_QUERIES = METRICS.counter("repository.indexQueries");
+    private static final Counter SCAN_QUERIES = METRICS.counter("repository.scanQueries");
+    private static final Counter EVENTS = METRICS.counter("repository.events");
+
+    /**
+     * The number of posts one task of a parallel query scan filters.
+     */
+    private static final int SCAN_CHUNK = 16_384;
+
+    /**
+     * The estimated cost of fetching one candidate from an index, relative to testing
+     * one title condition during a scan.
+     */
+    private static final double INDEX_ROW_COST = 4;
+
+    /**
+     * The estimated overhead of one task of a parallel scan.
+     */
+    private static final double CHUNK_COST = 1_000;
+
+    /**
+     * The default limits of the query result cache: entries and posts held.
+     */
+    private static final int CACHE_ENTRIES = 256;
+    private static final long CACHE_WEIGHT = 100_000;
+
+    private volatile PersistentPostList posts = PersistentPostList.empty();
+    private final Map<String, List<Post>> postsByTitle = new HashMap<>();
+    private final Map<String, List<Post>> postsByAuthor = new HashMap<>();
+    private final PostIdMap postsById = new PostIdMap();
+    private long nextId = 1;
+    private final AtomicLong sharedIds;
+    private final QueryResultCache cache = new QueryResultCache(CACHE_ENTRIES, CACHE_WEIGHT);
+    private final List<PostChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final StampedLock lock = new StampedLock();
+    private final Queue<PostChangeEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+    private volatile PostJournal journal;
+    private final CompletableFuture<Void> ready;
+    private final AtomicBoolean loadingStarted = new AtomicBoolean();
 
     /**
      * Constructor for the PostRepository class. Initializes the repository with some default posts.
      */
     public PostRepository() {
-        posts = new ArrayList<>();
-        posts.add(new Post("Pierwszy post", "Marcel Kuczek", "Kuczek pierwszy post"));
-        posts.add(new Post("Drugi post", "Jan Kowalski", "Jan Kowalski pierwszy post."));
-        posts.add(new Post("Czwarty post", "Marcel Kuczek", "Kolejny post Marcel Kuczek."));
+        ready = CompletableFuture.completedFuture(null);
+        sharedIds = null;
+        addPost(new Post("Pierwszy post", "Marcel Kuczek", "Kuczek pierwszy post"));
+        addPost(new Post("Drugi post", "Jan Kowalski", "Jan Kowalski pierwszy post."));
+        addPost(new Post("Czwarty post", "Marcel Kuczek", "Kolejny post Marcel Kuczek."));
     }
-    
+
+    /**
+     * Creates an in-memory repository holding the given posts, for example posts
+     * loaded from a {@link PostSnapshot}.
+     *
+     * @param initialPosts The posts to start with, in display order
+     */
+    public PostRepository(List<Post> initialPosts) {
+        ready = CompletableFuture.completedFuture(null);
+        sharedIds = null;
+        if (!initialPosts.isEmpty()) {
+            insertBatch(initialPosts);
+        }
+    }
+
+    private PostRepository(PostJournal journal, CompletableFuture<Void> ready) {
+        this.journal = journal;
+        this.ready = ready;
+        this.sharedIds = null;
+    }
+
+    /**
+     * Creates an empty in-memory repository that draws the ids of new posts from a
+     * counter shared with other repositories, as the shards of a
+     * {@link ShardedPostRepository} do, so ids stay unique across all of them.
+     *
+     * @param sharedIds The next free id of all repositories sharing the counter
+     */
+    PostRepository(AtomicLong sharedIds) {
+        this.ready = CompletableFuture.completedFuture(null);
+        this.sharedIds = sharedIds;
+    }
+
+    /**
+     * Creates a repository without the default posts and without persistence.
+     *
+     * @return An empty in-memory repository
+     */
+    static PostRepository empty() {
+        return new PostRepository(null, CompletableFuture.completedFuture(null));
+    }
+
     /**
-     * Retrieves a list of posts by a selecteed author.
-     * 
+     * Opens a persistent repository stored in the given data directory.
+     * The posts are rebuilt from the journal, and every later change is appended to it.
+     *
+     * @param dataDirectory The directory holding the journal segments
+     * @return The repository with all previously saved posts
+     * @throws IOException if the journal cannot be read or opened for writing
+     */
+    public static PostRepository open(Path dataDirectory) throws IOException {
+        PostJournal journal = new PostJournal(dataDirectory);
+        PostRepository repository = empty();
+        journal.replay(repository);
+        repository.journal = journal;
+        return repository;
+    }
+
+    /**
+     * Creates an empty repository that is filled later by
+     * {@link #startLoading(Callable, Executor)}. Views and listeners can be attached
+     * before loading starts, so they receive every loaded post as a change event.
+     * Reads see the posts loaded so far; writes wait until loading finished and fail
+     * if it failed.
+     *
+     * @return An empty repository waiting to be loaded
+     */
+    public static PostRepository loading() {
+        return new PostRepository(null, new CompletableFuture<>());
+    }
+
+    /**
+     * Fills a repository created by {@link #loading()} in the background with the posts
+     * of the repository built by the loader, e.g. {@code () -> PostRepository.open(dir)}.
+     * The posts are added in batches, each published as one change event, so views
+     * bound to the repository show them while loading continues. The loaded
+     * repository's journal, if any, is taken over once all posts were added.
+     *
+     * @param loader Builds the repository to load the posts from; runs on the executor
+     * @param executor Runs the loading
+     * @return A future completed once all posts are loaded, as {@link #whenReady()}
+     * @throws IllegalStateException if the repository was not created by {@link #loading()}
+     *         or is already loading
+     */
+    public CompletableFuture<Void> startLoading(Callable<PostRepository> loader, Executor executor) {
+        if (ready.isDone() || !loadingStarted.compareAndSet(false, true)) {
+            throw new IllegalStateException("The repository is not waiting to be loaded.");
+        }
+        executor.execute(() -> {
+            try {
+                PostRepository loaded = loader.call();
+                List<Post> all = loaded.getallPosts();
+                for (int from = 0; from < all.size(); from += PostImporter.BATCH_SIZE) {
+                    insertBatch(all.subList(from, Math.min(all.size(), from + PostImporter.BATCH_SIZE)));
+                }
+                long stamp = lock.writeLock();
+                try {
+                    nextId = Math.max(nextId, loaded.nextId);
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+                journal = loaded.journal;
+                loaded.journal = null;
+                ready.complete(null);
+            } catch (Exception | Error e) {
+                ready.completeExceptionally(e);
+            }
+        });
+        return whenReady();
+    }
+
+    /**
+     * Returns a future completed once all posts are loaded. For repositories not
+     * created by {@link #loading()} it is already complete.
+     *
+     * @return The loading future; completed exceptionally if loading failed
+     */
+    public CompletableFuture<Void> whenReady() {
+        return ready.thenApply(ignored -> null);
+    }
+
+    /**
+     * Retrieves a list of posts by a selecteed author. Repeated lookups are answered from
+     * the query result cache until a post of the author changes.
+     *
      * @param author The author's name to filter posts
-     * @return A list of posts written by the selected author
+     * @return An unmodifiable list of posts written by the selected author
      */
     public List<Post> getPostsByAuthor(String author) {
+        if (author == null) {
+            return List.of();
+        }
+        Object cacheKey = QueryResultCache.authorKey(author);
+        List<Post> cached = cache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        long version = cache.version();
+        String key = indexKey(author);
+        List<Post> result = read(GET_POSTS_BY_AUTHOR, () -> {
+            List<Post> matches = postsByAuthor.get(key);
+            return matches == null ? List.<Post>of() : List.copyOf(matches);
+        });
+        cache.put(cacheKey, result, version);
+        return result;
+    }
 
-        return posts.stream()
-                .filter(post -> post.getAuthor().equalsIgnoreCase(author))
-                .collect(Collectors.toList());
+    /**
+     * Returns an immutable snapshot of all posts, in display order. The snapshot is
+     * taken in O(1) without copying and never changes, so it may be read on any thread
+     * while the repository is being modified.
+     *
+     * @return The current version of the post list
+     */
+    public PersistentPostList getallPosts() {
+        long start = System.nanoTime();
+        PersistentPostList snapshot = posts;
+        GET_ALL_POSTS.recordSince(start);
+        return snapshot;
     }
-    
+
     /**
-     * Retrieves a list of posts.
-     * 
-     * 
-     * @return A list of posts
+     * Registers a listener that is notified after every change to the repository.
+     *
+     * @param listener The listener to add
      */
-    public List<Post> getallPosts() {
-        return posts.stream()
-                .collect(Collectors.toList());
+    public void addPostChangeListener(PostChangeListener listener) {
+        listeners.add(listener);
     }
-    
+
     /**
-     * Adds a new post to the repository.
-     * 
+     * Unregisters a previously added listener.
+     *
+     * @param listener The listener to remove
+     */
+    public void removePostChangeListener(PostChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the number of posts in the repository.
+     *
+     * @return The post count
+     */
+    public int getPostCount() {
+        long start = System.nanoTime();
+        int count = posts.size();
+        GET_POST_COUNT.recordSince(start);
+        return count;
+    }
+
+    /**
+     * Retrieves one page of posts, in the same order as {@link #getallPosts()}.
+     * The page is an immutable view of the current snapshot, so nothing is copied and
+     * each post of it is found in O(log n).
+     *
+     * @param fromIndex The index of the first post of the page
+     * @param count The maximum number of posts to return
+     * @return The posts of the page; shorter than count at the end of the repository
+     */
+    public List<Post> getPosts(int fromIndex, int count) {
+        long start = System.nanoTime();
+        PersistentPostList snapshot = posts;
+        int from = Math.max(0, Math.min(fromIndex, snapshot.size()));
+        int to = (int) Math.min(snapshot.size(), (long) from + Math.max(0, count));
+        List<Post> page = snapshot.subList(from, to);
+        GET_POSTS.recordSince(start);
+        return page;
+    }
+
+    /**
+     * Returns the post with the given id.
+     *
+     * @param id The id of the post
+     * @return The post, or null if no post has that id
+     */
+    public Post getPost(long id) {
+        return read(GET_POST, () -> postsById.get(id));
+    }
+
+    /**
+     * Adds a new post to the repository. A post with id 0 is stored under the next free
+     * id; a post that already has one, e.g. a post recreated from a snapshot, keeps it.
+     *
      * @param post The Post object to add
+     * @return The stored post, carrying its id
+     * @throws IllegalArgumentException if the post has an id that is not larger than the
+     *         ids of all posts added before
+     */
+    public Post addPost(Post post) {
+        awaitReady();
+        long start = System.nanoTime();
+        try {
+            Post stored;
+            long stamp = lock.writeLock();
+            try {
+                long firstId = nextId;
+                stored = withNextId(post);
+                if (journal != null) {
+                    try {
+                        journal.appendAdd(stored);
+                    } catch (RuntimeException e) {
+                        nextId = firstId;
+                        throw e;
+                    }
+                }
+                posts = posts.plus(stored);
+                addToIndexes(stored);
+                cache.invalidate(stored);
+                queueChange(PostChangeEvent.Type.ADDED, stored, posts.size() - 1, null);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            dispatchChanges();
+            return stored;
+        } finally {
+            ADD_POST.recordSince(start);
+        }
+    }
+
+    /**
+     * Adds several posts at once. The indexes, the journal and the listeners are updated
+     * once for the whole batch, which makes this much cheaper than repeated
+     * {@link #addPost(Post)} calls for bulk imports. Ids are assigned as by
+     * {@link #addPost(Post)}; if one of the posts is rejected, none is added.
+     *
+     * @param batch The posts to add, in display order
+     * @return The stored posts, carrying their ids
+     * @throws IllegalArgumentException if a post has an id that is not larger than the
+     *         ids of all posts before it
+     */
+    public List<Post> addPosts(List<Post> batch) {
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+        awaitReady();
+        long start = System.nanoTime();
+        try {
+            return insertBatch(batch);
+        } finally {
+            ADD_POSTS.recordSince(start);
+        }
+    }
+
+    private List<Post> insertBatch(List<Post> batch) {
+        List<Post> added = new ArrayList<>(batch.size());
+        long stamp = lock.writeLock();
+        try {
+            long firstId = nextId;
+            try {
+                for (Post post : batch) {
+                    added.add(withNextId(post));
+                }
+                if (journal != null) {
+                    journal.appendAdds(added);
+                }
+            } catch (RuntimeException e) {
+                nextId = firstId;
+                throw e;
+            }
+            added = Collections.unmodifiableList(added);
+            int firstIndex = posts.size();
+            posts = posts.plusAll(added);
+            for (Post post : added) {
+                addToIndexes(post);
+            }
+            cache.invalidate(added);
+            if (!listeners.isEmpty()) {
+                pendingEvents.add(PostChangeEvent.batchAdded(added, firstIndex, posts));
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        dispatchChanges();
+        return added;
+    }
+
+    /**
+     * Deletes the post with the given id.
+     *
+     * @param id The id of the post to delete
+     * @throws PostNotFoundException if no post has that id
      */
-    public void addPost(Post post) {
-        posts.add(post);
+    public void deletePost(long id) throws PostNotFoundException {
+        delete(() -> findById(id));
     }
-    
+
     /**
-     * Deletes a post from the repository by its title.
-     * 
+     * Deletes the first post, in insertion order, with the given title. Prefer
+     * {@link #deletePost(long)}, which is unambiguous when titles repeat.
+     *
      * @param postTitleToDelete The title of the post to delete
+     * @throws PostNotFoundException if no post has that title
      */
     public void deletePost(String postTitleToDelete) throws PostNotFoundException {
-        Post postToRemove = posts.stream()
-            .filter(post -> post.getTitle().equalsIgnoreCase(postTitleToDelete)) 
-            .findFirst() 
-            .orElseThrow(() -> new PostNotFoundException("Post '" + postTitleToDelete + "' not found."));
+        delete(() -> findByTitle(postTitleToDelete));
+    }
 
-        posts.remove(postToRemove); 
+    private void delete(Lookup lookup) throws PostNotFoundException {
+        awaitReady();
+        long start = System.nanoTime();
+        try {
+            long stamp = lock.writeLock();
+            try {
+                Post postToRemove = lookup.find();
+                if (journal != null) {
+                    journal.appendDelete(postToRemove.getId());
+                }
+                int index = posts.indexOfId(postToRemove.getId());
+                posts = posts.minus(index);
+                removeFromIndex(postsByTitle, postToRemove.getTitle(), postToRemove);
+                removeFromIndex(postsByAuthor, postToRemove.getAuthor(), postToRemove);
+                postsById.remove(postToRemove.getId());
+                cache.invalidate(postToRemove);
+                queueChange(PostChangeEvent.Type.REMOVED, postToRemove, index, null);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            dispatchChanges();
+        } finally {
+            DELETE_POST.recordSince(start);
+        }
     }
 
     public enum ModificationType {
         TITLE, CONTENT
     }
-    
+
     /**
-     * Modifies the title of an post.
-     * 
+     * Modifies the title or the content of the post with the given id. The post is
+     * replaced by a modified copy with the same id; the original post stays unchanged.
+     *
+     * @param id The id of the post to modify
+     * @param newValue The new title or content
+     * @param type Which field to modify
+     * @throws PostNotFoundException if no post has that id
+     */
+    public void modifyPost(long id, String newValue, ModificationType type) throws PostNotFoundException {
+        modify(() -> findById(id), newValue, type);
+    }
+
+    /**
+     * Modifies the title or the content of the first post, in insertion order, with the
+     * given title. Prefer {@link #modifyPost(long, String, ModificationType)}, which is
+     * unambiguous when titles repeat.
+     *
      * @param postTitleToModify The current title of the post to modify
+     * @param newValue The new title or content
+     * @param type Which field to modify
+     * @throws PostNotFoundException if no post has that title
      */
     public void modifyPost(String postTitleToModify, String newValue, ModificationType type) throws PostNotFoundException {
-        Post postToModify = null;
-        for (Post post : posts) {
-            if (post.getTitle().equalsIgnoreCase(postTitleToModify)) {
-                postToModify = post;
-                break;
+        modify(() -> findByTitle(postTitleToModify), newValue, type);
+    }
+
+    private void modify(Lookup lookup, String newValue, ModificationType type) throws PostNotFoundException {
+        awaitReady();
+        long start = System.nanoTime();
+        try {
+            long stamp = lock.writeLock();
+            try {
+                Post postToModify = lookup.find();
+                if (journal != null) {
+                    journal.appendModify(postToModify.getId(), newValue, type);
+                }
+                Post modified;
+                if (type == ModificationType.TITLE) {
+                    modified = postToModify.withTitle(newValue);
+                    removeFromIndex(postsByTitle, postToModify.getTitle(), postToModify);
+                    addToIndex(postsByTitle, newValue, modified);
+                } else {
+                    modified = postToModify.withContent(newValue);
+                    replaceInIndex(postsByTitle, postToModify.getTitle(), postToModify, modified);
+                }
+                replaceInIndex(postsByAuthor, postToModify.getAuthor(), postToModify, modified);
+                postsById.put(modified.getId(), modified);
+                int index = posts.indexOfId(modified.getId());
+                posts = posts.with(index, modified);
+                cache.invalidate(postToModify);
+                cache.invalidate(modified);
+                PostChangeEvent.Type eventType = type == ModificationType.TITLE
+                        ? PostChangeEvent.Type.TITLE_CHANGED
+                        : PostChangeEvent.Type.CONTENT_CHANGED;
+                queueChange(eventType, modified, index, postToModify);
+            } finally {
+                lock.unlockWrite(stamp);
             }
+            dispatchChanges();
+        } finally {
+            MODIFY_POST.recordSince(start);
         }
-        if (postToModify != null) {
-            if (type == ModificationType.TITLE) {
-                postToModify.setTitle(newValue);
-            } else if (type == ModificationType.CONTENT) {
-                postToModify.setContent(newValue);
+    }
+
+    /**
+     * Applies a batch of changes atomically. All posts the batch refers to are looked up
+     * before anything changes, so a batch naming a missing post changes nothing. The
+     * changes are then applied in one pass under the write lock, published as one
+     * {@link PostChangeEvent.Type#BATCH_UPDATED} event and journaled as one record, so
+     * neither readers, listeners nor a replay after a crash see part of a batch.
+     *
+     * A post changed several times is replaced once, by its final version.
+     *
+     * @param batch The changes to apply
+     * @return The stored final versions of the changed posts that were not deleted, in
+     *         display order, as they were when the batch was applied
+     * @throws PostNotFoundException if a change refers to a post that does not exist or
+     *         was deleted earlier in the batch
+     */
+    public List<Post> update(PostBatch batch) throws PostNotFoundException {
+        List<PostBatch.Operation> operations = List.copyOf(batch.operations());
+        if (operations.isEmpty()) {
+            return List.of();
+        }
+        awaitReady();
+        long start = System.nanoTime();
+        try {
+            List<Post> result;
+            long stamp = lock.writeLock();
+            try {
+                // The final version of every touched post, or null once it is deleted.
+                Map<Long, Post> updated = new TreeMap<>();
+                for (PostBatch.Operation operation : operations) {
+                    Post post = updated.containsKey(operation.id())
+                            ? updated.get(operation.id())
+                            : postsById.get(operation.id());
+                    if (post == null) {
+                        NOT_FOUND.increment();
+                        throw new PostNotFoundException("Post " + operation.id() + " not found.");
+                    }
+                    updated.put(operation.id(), switch (operation.kind()) {
+                        case TITLE -> post.withTitle(operation.value());
+                        case CONTENT -> post.withContent(operation.value());
+                        case DELETE -> null;
+                    });
+                }
+
+                // Everything that can fail, the lookups and building the new versions from
+                // values PostBatch has already checked, is done above, so nothing below
+                // can leave the batch applied in part.
+                if (journal != null) {
+                    journal.appendBatch(operations);
+                }
+
+                // Posts are visited by id, i.e. in list order, and every index refers to
+                // the list after the changes before it, as the nested events require.
+                List<PostChangeEvent> changes = new ArrayList<>(updated.size());
+                List<Post> touched = new ArrayList<>(2 * updated.size());
+                List<Post> stored = new ArrayList<>(updated.size());
+                for (Map.Entry<Long, Post> entry : updated.entrySet()) {
+                    Post original = postsById.get(entry.getKey());
+                    Post modified = entry.getValue();
+                    int index = posts.indexOfId(original.getId());
+                    if (modified == null) {
+                        posts = posts.minus(index);
+                        removeFromIndex(postsByTitle, original.getTitle(), original);
+                        removeFromIndex(postsByAuthor, original.getAuthor(), original);
+                        postsById.remove(original.getId());
+                        touched.add(original);
+                        changes.add(PostChangeEvent.removed(original, index, null));
+                        continue;
+                    }
+                    boolean titleChanged = !modified.getTitle().equals(original.getTitle());
+                    posts = posts.with(index, modified);
+                    if (titleChanged) {
+                        removeFromIndex(postsByTitle, original.getTitle(), original);
+                        addToIndex(postsByTitle, modified.getTitle(), modified);
+                    } else {
+                        replaceInIndex(postsByTitle, original.getTitle(), original, modified);
+                    }
+                    replaceInIndex(postsByAuthor, original.getAuthor(), original, modified);
+                    postsById.put(modified.getId(), modified);
+                    touched.add(original);
+                    touched.add(modified);
+                    stored.add(modified);
+                    PostChangeEvent.Type type = titleChanged
+                            ? PostChangeEvent.Type.TITLE_CHANGED
+                            : PostChangeEvent.Type.CONTENT_CHANGED;
+                    changes.add(PostChangeEvent.replaced(type, modified, index, original, null));
+                }
+                cache.invalidate(touched);
+                if (!listeners.isEmpty()) {
+                    pendingEvents.add(PostChangeEvent.batchUpdated(changes, posts));
+                }
+                result = Collections.unmodifiableList(stored);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            dispatchChanges();
+            return result;
+        } finally {
+            UPDATE.recordSince(start);
+        }
+    }
+
+    /**
+     * Finds the posts matching a query. The query runs as planned by
+     * {@link #explain(PostQuery)}: either only the posts of one index entry are checked,
+     * or the current snapshot is split into chunks that are filtered in parallel on the
+     * common fork-join pool. Scans read an immutable snapshot, so a query never blocks
+     * writers, however long it runs. Results are cached until a post the query matches,
+     * before or after a change, is changed.
+     *
+     * @param query The query
+     * @return An unmodifiable list of the matching posts, in display order
+     */
+    public List<Post> query(PostQuery query) {
+        long start = System.nanoTime();
+        try {
+            List<Post> cached = cache.get(query);
+            if (cached != null) {
+                return cached;
+            }
+            long version = cache.version();
+            PersistentPostList snapshot = posts;
+            QueryPlan plan = plan(query, snapshot.size());
+            List<Post> result;
+            if (plan.usesIndex()) {
+                INDEX_QUERIES.increment();
+                result = Collections.unmodifiableList(runIndexed(plan));
+            } else {
+                SCAN_QUERIES.increment();
+                result = Collections.unmodifiableList(runScan(plan, snapshot));
             }
+            cache.put(query, result, version);
+            return result;
+        } finally {
+            QUERY.recordSince(start);
+        }
+    }
+
+    /**
+     * Returns the cache of query and author lookup results, e.g. to read its hit rate
+     * or change its limits.
+     *
+     * @return The query result cache
+     */
+    public QueryResultCache getQueryCache() {
+        return cache;
+    }
+
+    /**
+     * Plans a query without running it. Every top-level condition on the id, title or
+     * author is a candidate for an index lookup; the exact number of posts each would
+     * fetch is read from the index. The lookup is chosen over a scan if fetching and
+     * checking its posts is estimated to be cheaper than checking all posts, spread over
+     * the cores. The remaining conditions are checked cheapest first.
+     *
+     * @param query The query
+     * @return The plan; its string form is the explain output
+     */
+    public QueryPlan explain(PostQuery query) {
+        return plan(query, posts.size());
+    }
+
+    private QueryPlan plan(PostQuery query, int postCount) {
+        List<PostQuery> conditions = new ArrayList<>(query.conjuncts());
+        conditions.sort(Comparator.comparingDouble(PostQuery::cost));
+        double filterCost = 0;
+        for (PostQuery condition : conditions) {
+            filterCost += condition.cost();
+        }
+
+        int parallelism = ForkJoinPool.getCommonPoolParallelism() + 1;
+        int chunks = Math.max(1, Math.min((postCount + SCAN_CHUNK - 1) / SCAN_CHUNK, 4 * parallelism));
+        List<QueryPlan> plans = new ArrayList<>();
+        if (chunks == 1) {
+            plans.add(new QueryPlan(QueryPlan.Access.SCAN, null, conditions, postCount, postCount, 1,
+                    postCount * filterCost, List.of()));
         } else {
-            throw new PostNotFoundException("Post '" + postTitleToModify + "' not found.");
+            plans.add(new QueryPlan(QueryPlan.Access.PARALLEL_SCAN, null, conditions, postCount, postCount, chunks,
+                    postCount * filterCost / Math.min(chunks, parallelism) + chunks * CHUNK_COST, List.of()));
         }
+
+        int[] candidates = read(EXPLAIN, () -> candidateCounts(conditions));
+        for (int i = 0; i < conditions.size(); i++) {
+            if (candidates[i] >= 0) {
+                PostQuery indexCondition = conditions.get(i);
+                List<PostQuery> filters = new ArrayList<>(conditions);
+                filters.remove(i);
+                QueryPlan.Access access = indexCondition instanceof PostQuery.IdEquals ? QueryPlan.Access.ID_LOOKUP
+                        : ((PostQuery.FieldEquals) indexCondition).field == PostQuery.Field.TITLE
+                        ? QueryPlan.Access.TITLE_INDEX : QueryPlan.Access.AUTHOR_INDEX;
+                plans.add(new QueryPlan(access, indexCondition, filters, postCount, candidates[i], 0,
+                        candidates[i] * (INDEX_ROW_COST + filterCost - indexCondition.cost()), List.of()));
+            }
+        }
+
+        QueryPlan best = plans.get(0);
+        for (QueryPlan plan : plans) {
+            if (plan.getCost() < best.getCost()) {
+                best = plan;
+            }
+        }
+        List<String> rejected = new ArrayList<>(plans.size() - 1);
+        for (QueryPlan plan : plans) {
+            if (plan != best) {
+                rejected.add(plan.summary());
+            }
+        }
+        return best.withAlternatives(rejected);
+    }
+
+    /**
+     * Returns for every condition the number of posts its index entry holds, or -1 if
+     * the condition cannot be answered from an index.
+     */
+    private int[] candidateCounts(List<PostQuery> conditions) {
+        int[] counts = new int[conditions.size()];
+        for (int i = 0; i < counts.length; i++) {
+            PostQuery condition = conditions.get(i);
+            if (condition instanceof PostQuery.IdEquals byId) {
+                counts[i] = postsById.get(byId.id) == null ? 0 : 1;
+            } else if (condition instanceof PostQuery.FieldEquals byField) {
+                List<Post> bucket = indexOf(byField.field).get(indexKey(byField.value));
+                counts[i] = bucket == null ? 0 : bucket.size();
+            } else {
+                counts[i] = -1;
+            }
+        }
+        return counts;
+    }
+
+    private List<Post> runIndexed(QueryPlan plan) {
+        PostQuery condition = plan.getIndexCondition();
+        List<Post> candidates = read(QUERY_INDEX, () -> {
+            if (condition instanceof PostQuery.IdEquals byId) {
+                Post post = postsById.get(byId.id);
+                return post == null ? List.<Post>of() : List.of(post);
+            }
+            PostQuery.FieldEquals byField = (PostQuery.FieldEquals) condition;
+            List<Post> bucket = indexOf(byField.field).get(indexKey(byField.value));
+            return bucket == null ? List.<Post>of() : List.copyOf(bucket);
+        });
+        PostQuery filter = new PostQuery.And(plan.getFilters());
+        List<Post> matches = new ArrayList<>();
+        for (Post post : candidates) {
+            if (filter.test(post)) {
+                matches.add(post);
+            }
+        }
+        // Index entries are in insertion order, but a renamed post joins its new title
+        // entry at the end; ordering by id restores the display order.
+        matches.sort(Comparator.comparingLong(Post::getId));
+        return matches;
+    }
+
+    private static List<Post> runScan(QueryPlan plan, PersistentPostList snapshot) {
+        PostQuery filter = new PostQuery.And(plan.getFilters());
+        int size = snapshot.size();
+        int chunks = plan.getChunks();
+        List<List<Post>> parts = IntStream.range(0, chunks).parallel().mapToObj(chunk -> {
+            int from = (int) ((long) size * chunk / chunks);
+            int to = (int) ((long) size * (chunk + 1) / chunks);
+            List<Post> matches = new ArrayList<>();
+            snapshot.forEach(from, to, post -> {
+                if (filter.test(post)) {
+                    matches.add(post);
+                }
+            });
+            return matches;
+        }).toList();
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        int total = 0;
+        for (List<Post> part : parts) {
+            total += part.size();
+        }
+        List<Post> matches = new ArrayList<>(total);
+        for (List<Post> part : parts) {
+            matches.addAll(part);
+        }
+        return matches;
+    }
+
+    private Map<String, List<Post>> indexOf(PostQuery.Field field) {
+        return field == PostQuery.Field.TITLE ? postsByTitle : postsByAuthor;
+    }
+
+    /**
+     * Flushes and closes the journal of a persistent repository. Does nothing for an
+     * in-memory repository.
+     *
+     * @throws IOException if pending changes could not be persisted
+     */
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Blocks a write until the repository finished loading.
+     */
+    private void awaitReady() {
+        ready.join();
+    }
+
+    /**
+     * Runs an index lookup as an optimistic stamped read and falls back to the read lock
+     * when a writer changed the repository in the meantime. A read racing with a writer
+     * may see the indexes mid-update and fail; its result is discarded in that case.
+     *
+     * @param latency The histogram recording the duration of the read
+     * @param reader The read to run; must not have side effects
+     * @return The result of a read that did not overlap with a write
+     */
+    private <T> T read(LatencyHistogram latency, Supplier<T> reader) {
+        long start = System.nanoTime();
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = reader.get();
+                if (lock.validate(stamp)) {
+                    latency.recordSince(start);
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // Raced with a writer; retried below under the read lock.
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+            latency.recordSince(start);
+        }
+    }
+
+    /**
+     * Queues a change event; must be called while holding the write lock, so the queue
+     * order is the commit order.
+     */
+    private void queueChange(PostChangeEvent.Type type, Post post, int index, Post previous) {
+        if (!listeners.isEmpty()) {
+            pendingEvents.add(switch (type) {
+                case ADDED -> PostChangeEvent.added(post, index, posts);
+                case REMOVED -> PostChangeEvent.removed(post, index, posts);
+                default -> PostChangeEvent.replaced(type, post, index, previous, posts);
+            });
+        }
+    }
+
+    /**
+     * Delivers the queued change events to the listeners, one thread at a time and in
+     * commit order. Called after the write lock was released.
+     */
+    private void dispatchChanges() {
+        if (pendingEvents.isEmpty()) {
+            return;
+        }
+        dispatchLock.lock();
+        try {
+            PostChangeEvent event;
+            while ((event = pendingEvents.poll()) != null) {
+                EVENTS.increment();
+                for (PostChangeListener listener : listeners) {
+                    listener.postChanged(event);
+                }
+            }
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+
+    /**
+     * Finds the post with the given id; must be called while holding the write lock.
+     *
+     * @param id The id to look up
+     * @return The matching post
+     * @throws PostNotFoundException if no post has the given id
+     */
+    private Post findById(long id) throws PostNotFoundException {
+        Post post = postsById.get(id);
+        if (post == null) {
+            NOT_FOUND.increment();
+            throw new PostNotFoundException("Post " + id + " not found.");
+        }
+        return post;
+    }
+
+    /**
+     * Finds the first post, in insertion order, with the given title.
+     *
+     * @param title The title to look up, compared case-insensitively
+     * @return The matching post
+     * @throws PostNotFoundException if no post has the given title
+     */
+    private Post findByTitle(String title) throws PostNotFoundException {
+        List<Post> matches = postsByTitle.get(indexKey(title));
+        if (matches == null) {
+            NOT_FOUND.increment();
+            throw new PostNotFoundException("Post '" + title + "' not found.");
+        }
+        return matches.get(0);
+    }
+
+    /**
+     * Normalizes a title or author name into the key used by the hash indexes.
+     *
+     * @param value The title or author name
+     * @return The lower-cased key
+     */
+    private static String indexKey(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the id the next added post without an id would get; saved by snapshots
+     * and compacted journals so that ids of deleted posts are never handed out again.
+     *
+     * @return The next free id
+     */
+    long nextId() {
+        long stamp = lock.readLock();
+        try {
+            return nextId;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Makes sure no id below the given one is assigned to a new post, e.g. when
+     * restoring a repository whose newest posts were deleted.
+     *
+     * @param next The saved next free id; smaller values are ignored
+     */
+    void reserveIds(long next) {
+        long stamp = lock.writeLock();
+        try {
+            nextId = Math.max(nextId, next);
+            if (sharedIds != null) {
+                sharedIds.accumulateAndGet(nextId, Math::max);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the post as it will be stored: with the next free id if it has none, and
+     * unchanged if its id is larger than all ids so far. Ids therefore increase along
+     * the post list, which {@link PersistentPostList#indexOfId(long)} relies on. With a
+     * shared counter this still holds, since ids are drawn under the write lock.
+     */
+    private Post withNextId(Post post) {
+        long id = post.getId();
+        if (id == 0) {
+            id = sharedIds != null ? sharedIds.getAndIncrement() : nextId;
+            post = post.withId(id);
+        } else if (id < nextId) {
+            throw new IllegalArgumentException("Post id " + id + " is not larger than the ids of the stored posts.");
+        }
+        nextId = id + 1;
+        if (sharedIds != null) {
+            sharedIds.accumulateAndGet(nextId, Math::max);
+        }
+        return post;
+    }
+
+    private void addToIndexes(Post post) {
+        addToIndex(postsByTitle, post.getTitle(), post);
+        addToIndex(postsByAuthor, post.getAuthor(), post);
+        postsById.put(post.getId(), post);
+    }
+
+    private static void addToIndex(Map<String, List<Post>> index, String value, Post post) {
+        index.computeIfAbsent(indexKey(value), key -> new ArrayList<>(1)).add(post);
+    }
+
+    private static void replaceInIndex(Map<String, List<Post>> index, String value, Post post, Post replacement) {
+        List<Post> bucket = index.get(indexKey(value));
+        if (bucket != null) {
+            bucket.replaceAll(candidate -> candidate == post ? replacement : candidate);
+        }
+    }
+
+    private static void removeFromIndex(Map<String, List<Post>> index, String value, Post post) {
+        String key = indexKey(value);
+        List<Post> bucket = index.get(key);
+        if (bucket == null) {
+            return;
+        }
+        bucket.removeIf(candidate -> candidate == post);
+        if (bucket.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    /**
+     * Finds the post a delete or modify applies to, under the write lock.
+     */
+    @FunctionalInterface
+    private interface Lookup {
+        Post find() throws PostNotFoundException;
     }
-}
\ No newline at end of file
+}
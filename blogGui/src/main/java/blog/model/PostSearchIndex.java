@@ -0,0 +1,335 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The PostSearchIndex class is an inverted full-text index over the titles and contents
+ * of the posts in a PostRepository.
+ *
+ * For every term produced by {@link TextTokenizer} the index keeps the posts containing
+ * it together with the term's positions, which allows phrase queries. The index follows
+ * the repository's change events, so it stays in sync with every add, modify and delete
+ * without being rebuilt.
+ *
+ * Queries consist of terms and quoted phrases, all of which must match. Results are
+ * ranked by TF-IDF, normalized by the length of the post.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public class PostSearchIndex implements PostChangeListener {
+
+    private static final Pattern QUERY_PART = Pattern.compile("\"([^\"]*)\"|(\\S+)");
+
+    private final PostRepository repository;
+    private final Map<String, Map<Post, int[]>> postings = new HashMap<>();
+    private final Map<Post, String[]> termsByPost = new IdentityHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates an index over the given repository and starts following its changes.
+     * The index is empty until {@link #build()} is called.
+     *
+     * @param repository The repository to index
+     */
+    public PostSearchIndex(PostRepository repository) {
+        this.repository = repository;
+        repository.addPostChangeListener(this);
+    }
+
+    /**
+     * Indexes all posts currently in the repository. Queries wait until the build is done;
+     * changes made meanwhile are applied afterwards.
+     */
+    public void build() {
+        lock.writeLock().lock();
+        try {
+            for (Post post : repository.getallPosts()) {
+                index(post);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stops following the repository.
+     */
+    public void dispose() {
+        repository.removePostChangeListener(this);
+    }
+
+    /**
+     * Updates the index after a change in the repository. A modified post replaces
+     * the previous version of it, which is removed from the index.
+     *
+     * @param event The repository change
+     */
+    @Override
+    public void postChanged(PostChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(PostChangeEvent event) {
+        switch (event.getType()) {
+            case REMOVED -> unindex(event.getPost());
+            case BATCH_ADDED -> event.getPosts().forEach(this::index);
+            case BATCH_UPDATED -> event.getChanges().forEach(this::apply);
+            case TITLE_CHANGED, CONTENT_CHANGED -> {
+                unindex(event.getPrevious());
+                index(event.getPost());
+            }
+            default -> index(event.getPost());
+        }
+    }
+
+    /**
+     * Finds the posts matching all terms and phrases of the query.
+     *
+     * @param query Terms and quoted phrases, e.g. {@code zolc "pierwszy post"}
+     * @param limit The maximum number of results
+     * @return The matching posts, best match first
+     */
+    public List<Post> search(String query, int limit) {
+        List<List<String>> parts = parse(query);
+        if (parts.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            parts.sort(Comparator.comparingInt(this::estimatedMatches));
+            Hits hits = null;
+            for (List<String> part : parts) {
+                hits = match(part, hits);
+                if (hits.size == 0) {
+                    return new ArrayList<>();
+                }
+            }
+            return hits.top(limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates how many posts a term or phrase matches, so the most selective part of
+     * a query is evaluated first and the later parts only check its few candidates.
+     */
+    private int estimatedMatches(List<String> part) {
+        int estimate = Integer.MAX_VALUE;
+        for (String term : part) {
+            Map<Post, int[]> list = postings.get(term);
+            estimate = Math.min(estimate, list == null ? 0 : list.size());
+        }
+        return estimate;
+    }
+
+    private static List<List<String>> parse(String query) {
+        List<List<String>> parts = new ArrayList<>();
+        if (query == null) {
+            return parts;
+        }
+        Matcher matcher = QUERY_PART.matcher(query);
+        while (matcher.find()) {
+            String text = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+            List<String> terms = TextTokenizer.tokenize(text);
+            if (matcher.group(1) != null) {
+                if (!terms.isEmpty()) {
+                    parts.add(terms);
+                }
+            } else {
+                for (String term : terms) {
+                    parts.add(List.of(term));
+                }
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Scores the posts matching one term or phrase. The first part of a query scans its
+     * rarest posting list; every later part only filters the hits of the previous ones.
+     *
+     * @param part A single term, or the terms of a phrase
+     * @param hits The hits so far, or null for the first part
+     * @return The hits that also match this part, with the part's score added
+     */
+    private Hits match(List<String> part, Hits hits) {
+        List<Map<Post, int[]>> lists = new ArrayList<>(part.size());
+        for (String term : part) {
+            Map<Post, int[]> list = postings.get(term);
+            if (list == null) {
+                return new Hits(0);
+            }
+            lists.add(list);
+        }
+        double idf = 0;
+        for (Map<Post, int[]> list : lists) {
+            idf += Math.log(1 + (double) termsByPost.size() / list.size());
+        }
+
+        if (hits == null) {
+            Map<Post, int[]> rarest = lists.get(0);
+            for (Map<Post, int[]> list : lists) {
+                if (list.size() < rarest.size()) {
+                    rarest = list;
+                }
+            }
+            hits = new Hits(rarest.size());
+            for (Post post : rarest.keySet()) {
+                int occurrences = occurrences(post, lists);
+                if (occurrences > 0) {
+                    hits.posts[hits.size] = post;
+                    hits.scores[hits.size++] = score(idf, occurrences, post);
+                }
+            }
+            return hits;
+        }
+
+        int kept = 0;
+        for (int i = 0; i < hits.size; i++) {
+            Post post = hits.posts[i];
+            int occurrences = occurrences(post, lists);
+            if (occurrences > 0) {
+                hits.posts[kept] = post;
+                hits.scores[kept++] = hits.scores[i] + score(idf, occurrences, post);
+            }
+        }
+        hits.size = kept;
+        return hits;
+    }
+
+    private double score(double idf, int occurrences, Post post) {
+        return idf * occurrences / Math.sqrt(Math.max(1, termsByPost.get(post).length));
+    }
+
+    /**
+     * Counts how often the terms occur in the post as a consecutive phrase.
+     */
+    private static int occurrences(Post post, List<Map<Post, int[]>> lists) {
+        int[] first = lists.get(0).get(post);
+        if (first == null) {
+            return 0;
+        }
+        if (lists.size() == 1) {
+            return first.length;
+        }
+        int count = 0;
+        for (int start : first) {
+            boolean phrase = true;
+            for (int offset = 1; offset < lists.size() && phrase; offset++) {
+                int[] positions = lists.get(offset).get(post);
+                phrase = positions != null && Arrays.binarySearch(positions, start + offset) >= 0;
+            }
+            if (phrase) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * (Re-)indexes a post from its current title and content. Title and content are
+     * separated by a position gap, so phrases never span both.
+     */
+    private void index(Post post) {
+        unindex(post);
+        List<String> terms = TextTokenizer.tokenize(post.getTitle());
+        terms.add(null);
+        terms.addAll(TextTokenizer.tokenize(post.getContent()));
+
+        Map<String, int[]> positions = new HashMap<>();
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            if (term == null) {
+                continue;
+            }
+            int[] termPositions = positions.get(term);
+            if (termPositions == null) {
+                positions.put(term, new int[] {i});
+            } else {
+                termPositions = Arrays.copyOf(termPositions, termPositions.length + 1);
+                termPositions[termPositions.length - 1] = i;
+                positions.put(term, termPositions);
+            }
+        }
+        for (Map.Entry<String, int[]> entry : positions.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new IdentityHashMap<>(2)).put(post, entry.getValue());
+        }
+        termsByPost.put(post, positions.keySet().toArray(new String[0]));
+    }
+
+    private void unindex(Post post) {
+        String[] terms = termsByPost.remove(post);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Post, int[]> list = postings.get(term);
+            if (list != null) {
+                list.remove(post);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * Matching posts and their scores, kept in parallel arrays to avoid boxing.
+     */
+    private static final class Hits {
+
+        private final Post[] posts;
+        private final double[] scores;
+        private int size;
+
+        Hits(int capacity) {
+            posts = new Post[capacity];
+            scores = new double[capacity];
+        }
+
+        /**
+         * Returns the best scoring posts, best first.
+         */
+        List<Post> top(int limit) {
+            PriorityQueue<Integer> best = new PriorityQueue<>(Comparator.comparingDouble(i -> scores[i]));
+            for (int i = 0; i < size; i++) {
+                if (best.size() < limit) {
+                    best.add(i);
+                } else if (scores[i] > scores[best.peek()]) {
+                    best.poll();
+                    best.add(i);
+                }
+            }
+            List<Post> results = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                results.add(posts[best.poll()]);
+            }
+            Collections.reverse(results);
+            return results;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+ * The PostSnapshot class reads and writes a compact binary image of all posts.
+ *
+ * A snapshot starts with a fixed header (magic, format version, post count, payload
+ * length, CRC32 of the payload and the next free id) followed by the posts, each stored as its id and
+ * creation time followed by three length-prefixed UTF-8 fields: title, author and
+ * content. The next free id is saved so that a repository loaded with
+ * {@link #load(Path)} never hands out the id of a post deleted before the snapshot
+ * again. Version 2 snapshots, written without it, continue after the largest saved id;
+ * version 1 snapshots, written before posts had ids, are still read as well, and their
+ * posts get ids when they are added to a repository and have no creation time (0). Snapshots are read
+ * into a heap buffer with one pass over a FileChannel, which is closed before loading
+ * returns; unlike a memory mapping, this leaves no hold on the file, so the snapshot
+ * can be replaced right away, also on Windows. The record offsets are located in one
+ * pass and the posts are then decoded in parallel.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public final class PostSnapshot {
+
+    private static final long MAGIC = 0x424C4F47534E4150L; // "BLOGSNAP"
+    private static final int VERSION = 3;
+    private static final int VERSION_WITHOUT_NEXT_ID = 2;
+    private static final int VERSION_WITHOUT_IDS = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final int HEADER_SIZE_WITHOUT_NEXT_ID = 32;
+
+    private PostSnapshot() {}
+
+    /**
+     * Reads all posts from a snapshot file.
+     *
+     * @param file The snapshot file
+     * @return The posts in their saved order
+     * @throws IOException if the file cannot be read, is not a snapshot or fails the checksum
+     */
+    public static List<Post> read(Path file) throws IOException {
+        return readContents(file).posts();
+    }
+
+    /**
+     * Loads a snapshot file into a new in-memory repository, which continues assigning
+     * ids after the saved next free id.
+     *
+     * @param file The snapshot file
+     * @return The repository holding the saved posts
+     * @throws IOException if the file cannot be read, is not a snapshot or fails the checksum
+     */
+    public static PostRepository load(Path file) throws IOException {
+        Contents contents = readContents(file);
+        PostRepository repository = new PostRepository(contents.posts());
+        repository.reserveIds(contents.nextId());
+        return repository;
+    }
+
+    private static Contents readContents(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE_WITHOUT_NEXT_ID) {
+                throw new IOException("'" + file + "' is not a post snapshot.");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("'" + file + "' is too large to be loaded.");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Snapshot '" + file + "' is truncated.");
+                }
+            }
+            buffer.flip();
+            if (buffer.getLong() != MAGIC) {
+                throw new IOException("'" + file + "' is not a post snapshot.");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION && version != VERSION_WITHOUT_NEXT_ID && version != VERSION_WITHOUT_IDS) {
+                throw new IOException("Unsupported snapshot version " + version + ".");
+            }
+            int headerSize = version == VERSION ? HEADER_SIZE : HEADER_SIZE_WITHOUT_NEXT_ID;
+            if (size < headerSize) {
+                throw new IOException("'" + file + "' is not a post snapshot.");
+            }
+            int count = buffer.getInt();
+            long payloadLength = buffer.getLong();
+            int checksum = buffer.getInt();
+            long nextId = version == VERSION ? buffer.getLong(32) : 0;
+            if (payloadLength != size - headerSize) {
+                throw new IOException("Snapshot '" + file + "' is truncated.");
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(headerSize, (int) payloadLength));
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("Snapshot '" + file + "' is corrupted.");
+            }
+
+            boolean withIds = version != VERSION_WITHOUT_IDS;
+            int[] offsets = new int[count];
+            int position = headerSize;
+            for (int i = 0; i < count; i++) {
+                offsets[i] = position;
+                if (withIds) {
+                    if (position + 16 > size) {
+                        throw new IOException("Snapshot contains an invalid post record.");
+                    }
+                    position += 16;
+                }
+                for (int field = 0; field < 3; field++) {
+                    int length = position + 4 <= size ? buffer.getInt(position) : -1;
+                    if (length < 0 || length > size - position - 4) {
+                        throw new IOException("Snapshot contains an invalid field length.");
+                    }
+                    position += 4 + length;
+                }
+            }
+
+            Post[] posts = new Post[count];
+            int chunks = Math.max(1, Math.min(count / 16_384, Runtime.getRuntime().availableProcessors()));
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                ByteBuffer view = buffer.duplicate();
+                byte[] scratch = new byte[4096];
+                int from = (int) ((long) count * chunk / chunks);
+                int to = (int) ((long) count * (chunk + 1) / chunks);
+                for (int i = from; i < to; i++) {
+                    view.position(offsets[i]);
+                    long id = withIds ? view.getLong() : 0;
+                    long createdAt = withIds ? view.getLong() : 0;
+                    String title = readString(view, scratch);
+                    String author = readString(view, scratch);
+                    String content = readString(view, scratch);
+                    posts[i] = new Post(id, createdAt, title, author, content);
+                }
+            });
+            return new Contents(new ArrayList<>(Arrays.asList(posts)), nextId);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the repository. Only the immutable post list snapshot is
+     * taken on the calling thread, in O(1); encoding and writing happen on a background
+     * thread, so the repository stays fully usable while the file is written and the
+     * file holds exactly the posts at the time of the call.
+     *
+     * The snapshot is written to a temporary file and moved into place once it is
+     * complete and synced, so an interrupted write never replaces a good snapshot.
+     *
+     * @param repository The repository to snapshot
+     * @param file The destination file
+     * @return A future completed once the snapshot is durable
+     */
+    public static CompletableFuture<Void> writeAsync(PostRepository repository, Path file) {
+        List<Post> posts = repository.getallPosts();
+        long nextId = repository.nextId();
+        return CompletableFuture.runAsync(() -> {
+            try {
+                write(posts, nextId, file);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Writes the given posts as a snapshot file. The next free id saved is the one after
+     * the largest saved id; {@link #writeAsync(PostRepository, Path)} saves the
+     * repository's own, which also covers deleted posts.
+     *
+     * @param posts The posts to save
+     * @param file The destination file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(List<Post> posts, Path file) throws IOException {
+        long nextId = 1;
+        for (Post post : posts) {
+            nextId = Math.max(nextId, post.getId() + 1);
+        }
+        write(posts, nextId, file);
+    }
+
+    /**
+     * Writes the given posts as a snapshot file, recording the next free id.
+     *
+     * @param posts The posts to save
+     * @param nextId The next id the repository would assign
+     * @param file The destination file
+     * @throws IOException if the file cannot be written
+     */
+    static void write(List<Post> posts, long nextId, Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.position(HEADER_SIZE);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new ChecksumOutputStream(Channels.newOutputStream(channel), crc), 1 << 16));
+            int count = 0;
+            for (Post post : posts) {
+                out.writeLong(post.getId());
+                out.writeLong(post.getCreatedAt());
+                writeString(out, post.getTitle());
+                writeString(out, post.getAuthor());
+                writeString(out, post.getContent());
+                count++;
+            }
+            out.flush();
+            long payloadLength = channel.position() - HEADER_SIZE;
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putLong(MAGIC).putInt(VERSION).putInt(count).putLong(payloadLength)
+                    .putInt((int) crc.getValue()).putInt(0).putLong(nextId).flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * The posts of a snapshot and the next free id; 0 for snapshots without one.
+     */
+    private record Contents(List<Post> posts, long nextId) {}
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer, byte[] scratch) {
+        int length = buffer.getInt();
+        byte[] target = length <= scratch.length ? scratch : new byte[length];
+        buffer.get(target, 0, length);
+        return new String(target, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Output stream that feeds everything written through it into a CRC32.
+     */
+    private static final class ChecksumOutputStream extends OutputStream {
+
+        private final OutputStream delegate;
+        private final CRC32 crc;
+
+        ChecksumOutputStream(OutputStream delegate, CRC32 crc) {
+            this.delegate = delegate;
+            this.crc = crc;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            crc.update(b);
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            crc.update(b, off, len);
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import java.util.List;
+import java.util.Locale;
+import lombok.Getter;
+
+/**
+ * The QueryPlan class describes how {@link PostRepository#query(PostQuery)} runs a query:
+ * which index, if any, provides the candidate posts, which conditions are checked on
+ * every candidate and in which order, and the estimates the choice was based on.
+ *
+ * Plans are returned by {@link PostRepository#explain(PostQuery)}; their
+ * {@link #toString()} is the human-readable explain output.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+@Getter
+public final class QueryPlan {
+
+    /**
+     * How the candidate posts are found.
+     */
+    public enum Access {
+        ID_LOOKUP, TITLE_INDEX, AUTHOR_INDEX, SCAN, PARALLEL_SCAN
+    }
+
+    private final Access access;
+    private final PostQuery indexCondition;
+    private final List<PostQuery> filters;
+    private final int postCount;
+    private final int candidates;
+    private final int chunks;
+    private final double cost;
+    private final double estimatedRows;
+    private final List<String> alternatives;
+
+    QueryPlan(Access access, PostQuery indexCondition, List<PostQuery> filters, int postCount, int candidates,
+            int chunks, double cost, List<String> alternatives) {
+        this.access = access;
+        this.indexCondition = indexCondition;
+        this.filters = List.copyOf(filters);
+        this.postCount = postCount;
+        this.candidates = candidates;
+        this.chunks = chunks;
+        this.cost = cost;
+        double rows = candidates;
+        for (PostQuery filter : filters) {
+            rows *= filter.selectivity();
+        }
+        this.estimatedRows = rows;
+        this.alternatives = List.copyOf(alternatives);
+    }
+
+    /**
+     * Returns a copy of this plan listing the given rejected alternatives.
+     *
+     * @param rejected One-line summaries of the plans not chosen
+     * @return The plan with the alternatives
+     */
+    QueryPlan withAlternatives(List<String> rejected) {
+        return new QueryPlan(access, indexCondition, filters, postCount, candidates, chunks, cost, rejected);
+    }
+
+    /**
+     * Returns the first line of the explain output together with the cost.
+     *
+     * @return The one-line summary
+     */
+    String summary() {
+        return toString().lines().findFirst().orElse("") + String.format(Locale.ROOT, ", cost %.0f", cost);
+    }
+
+    /**
+     * Returns whether the candidates come from an index instead of a scan.
+     *
+     * @return Whether an index is used
+     */
+    public boolean usesIndex() {
+        return access != Access.SCAN && access != Access.PARALLEL_SCAN;
+    }
+
+    /**
+     * Returns the explain output, e.g.
+     * <pre>
+     * AUTHOR_INDEX author = 'Jan Kowalski' (1000 of 1000000 posts)
+     *   filter: title starts with 'Re' AND content contains 'java'
+     *   estimated rows: 5.0, cost: 92000
+     *   rejected: PARALLEL_SCAN of 1000000 posts in 64 chunks, cost 1640000
+     * </pre>
+     *
+     * @return The plan, one step per line
+     */
+    @Override
+    public String toString() {
+        StringBuilder explain = new StringBuilder(access.name());
+        if (usesIndex()) {
+            explain.append(' ').append(indexCondition)
+                    .append(" (").append(candidates).append(" of ").append(postCount).append(" posts)");
+        } else {
+            explain.append(" of ").append(postCount).append(" posts");
+            if (access == Access.PARALLEL_SCAN) {
+                explain.append(" in ").append(chunks).append(" chunks");
+            }
+        }
+        if (!filters.isEmpty()) {
+            explain.append("\n  filter: ").append(new PostQuery.And(filters));
+        }
+        explain.append(String.format(Locale.ROOT, "\n  estimated rows: %.1f, cost: %.0f", estimatedRows, cost));
+        for (String alternative : alternatives) {
+            explain.append("\n  rejected: ").append(alternative);
+        }
+        return explain.toString();
+    }
+}
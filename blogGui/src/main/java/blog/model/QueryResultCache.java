@@ -0,0 +1,335 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import blog.metrics.Counter;
+import blog.metrics.MetricRegistry;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The QueryResultCache class keeps the results of recent repository reads, so reads
+ * repeated on every navigation are answered without touching the indexes or scanning
+ * the posts. It caches the results of {@link PostRepository#getPostsByAuthor(String)}
+ * and {@link PostRepository#query(PostQuery)}.
+ *
+ * The cache is bounded both by the number of entries and by their weight, the total
+ * number of posts held by all results; when either limit is exceeded, the least
+ * recently used entries are evicted. A result heavier than the weight limit is not
+ * cached at all.
+ *
+ * Invalidation is precise: the repository reports every added, removed and replaced
+ * post while holding its write lock, and only the entries the post could appear in are
+ * dropped, i.e. the entry of the post's author and the queries the post matches.
+ * Results computed while a change was being made are not stored, so the cache never
+ * serves a result older than the last completed write.
+ *
+ * Hits, misses, evictions and invalidations are counted per cache and in the default
+ * {@link MetricRegistry} under {@code queryCache.<event>}.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public final class QueryResultCache {
+
+    private static final MetricRegistry METRICS = MetricRegistry.getDefault();
+    private static final Counter HITS = METRICS.counter("queryCache.hits");
+    private static final Counter MISSES = METRICS.counter("queryCache.misses");
+    private static final Counter EVICTIONS = METRICS.counter("queryCache.evictions");
+    private static final Counter INVALIDATIONS = METRICS.counter("queryCache.invalidations");
+
+    /**
+     * Batches with more posts than this clear the whole cache instead of testing every
+     * post against every cached query.
+     */
+    private static final int BATCH_INVALIDATION_LIMIT = 64;
+
+    private final Map<Object, List<Post>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int maxEntries;
+    private long maxWeight;
+    private long weight;
+    private long version;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxEntries The maximum number of cached results
+     * @param maxWeight The maximum number of posts held by all cached results
+     */
+    public QueryResultCache(int maxEntries, long maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Returns the key under which the posts of an author are cached.
+     *
+     * @param author The author's name
+     * @return The cache key
+     */
+    static Object authorKey(String author) {
+        return new AuthorKey(author.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns a cached result and counts the hit or miss.
+     *
+     * @param key The key of the result
+     * @return The cached result, or null
+     */
+    synchronized List<Post> get(Object key) {
+        List<Post> result = entries.get(key);
+        if (result != null) {
+            hits++;
+            HITS.increment();
+        } else {
+            misses++;
+            MISSES.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of invalidations so far; a result computed after reading the
+     * version is only stored if the version did not change meanwhile.
+     *
+     * @return The current version
+     */
+    synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Stores a result unless a change was reported since the given version.
+     *
+     * @param key The key of the result
+     * @param result The unmodifiable result
+     * @param computedAt The version read before the result was computed
+     */
+    synchronized void put(Object key, List<Post> result, long computedAt) {
+        long entryWeight = weightOf(result);
+        if (computedAt != version || entryWeight > maxWeight || maxEntries == 0) {
+            return;
+        }
+        List<Post> previous = entries.put(key, result);
+        if (previous != null) {
+            weight -= weightOf(previous);
+        }
+        weight += entryWeight;
+        evict();
+    }
+
+    /**
+     * Drops the results a post could appear in; called by the repository for every
+     * post it adds, removes or replaces, and for the replaced post as well.
+     *
+     * @param post The changed post
+     */
+    synchronized void invalidate(Post post) {
+        version++;
+        if (entries.isEmpty()) {
+            return;
+        }
+        remove(authorKey(post.getAuthor()));
+        for (Iterator<Map.Entry<Object, List<Post>>> it = entries.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<Object, List<Post>> entry = it.next();
+            if (entry.getKey() instanceof PostQuery query && query.test(post)) {
+                weight -= weightOf(entry.getValue());
+                it.remove();
+                invalidations++;
+                INVALIDATIONS.increment();
+            }
+        }
+    }
+
+    /**
+     * Drops the results any of the posts could appear in, walking the cached entries
+     * once for all of them.
+     *
+     * @param posts The changed posts
+     */
+    synchronized void invalidate(List<Post> posts) {
+        version++;
+        if (entries.isEmpty() || posts.isEmpty()) {
+            return;
+        }
+        if (posts.size() > BATCH_INVALIDATION_LIMIT) {
+            invalidations += entries.size();
+            INVALIDATIONS.add(entries.size());
+            entries.clear();
+            weight = 0;
+            return;
+        }
+        for (Post post : posts) {
+            remove(authorKey(post.getAuthor()));
+        }
+        for (Iterator<Map.Entry<Object, List<Post>>> it = entries.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<Object, List<Post>> entry = it.next();
+            if (entry.getKey() instanceof PostQuery query && matchesAny(query, posts)) {
+                weight -= weightOf(entry.getValue());
+                it.remove();
+                invalidations++;
+                INVALIDATIONS.increment();
+            }
+        }
+    }
+
+    /**
+     * Changes the limits, evicting entries until the cache fits into them.
+     *
+     * @param maxEntries The maximum number of cached results
+     * @param maxWeight The maximum number of posts held by all cached results
+     */
+    public synchronized void resize(int maxEntries, long maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        evict();
+    }
+
+    /**
+     * Drops all cached results.
+     */
+    public synchronized void clear() {
+        version++;
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return The number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of posts held by all cached results.
+     *
+     * @return The total weight
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Returns the maximum number of cached results.
+     *
+     * @return The maximum number of cached results
+     */
+    public synchronized int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the maximum number of posts held by all cached results.
+     *
+     * @return The maximum number of posts held by all cached results
+     */
+    public synchronized long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return The number of lookups answered from the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups not answered from the cache.
+     *
+     * @return The number of lookups not answered from the cache
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries evicted to meet the limits.
+     *
+     * @return The number of entries evicted to meet the limits
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of entries dropped because of changes.
+     *
+     * @return The number of entries dropped because of changes
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Returns the share of lookups answered from the cache.
+     *
+     * @return The hit rate between 0 and 1, or 0 before the first lookup
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "%d/%d entries, %d/%d posts, %d hits, %d misses (%.1f%%), %d evictions, %d invalidations",
+                entries.size(), maxEntries, weight, maxWeight, hits, misses, 100 * getHitRate(), evictions, invalidations);
+    }
+
+    private void remove(Object key) {
+        List<Post> removed = entries.remove(key);
+        if (removed != null) {
+            weight -= weightOf(removed);
+            invalidations++;
+            INVALIDATIONS.increment();
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries until both limits are met.
+     */
+    private void evict() {
+        Iterator<List<Post>> eldest = entries.values().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && eldest.hasNext()) {
+            weight -= weightOf(eldest.next());
+            eldest.remove();
+            evictions++;
+            EVICTIONS.increment();
+        }
+    }
+
+    private static boolean matchesAny(PostQuery query, List<Post> posts) {
+        for (Post post : posts) {
+            if (query.test(post)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Weighs a result by its posts, plus one so empty results count as well.
+     */
+    private static long weightOf(List<Post> result) {
+        return 1 + result.size();
+    }
+
+    private record AuthorKey(String author) {}
+}
@@ -0,0 +1,339 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import blog.metrics.LatencyHistogram;
+import blog.metrics.MetricRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * The ShardedPostRepository class partitions posts by author over several independent
+ * {@link PostRepository} shards, so writes for different authors run in parallel
+ * instead of queueing for one write lock.
+ *
+ * A post belongs to the shard selected by the hash of its case-insensitive author
+ * name, so {@link #getPostsByAuthor(String)} reads exactly one shard. Ids are drawn
+ * from a counter shared by all shards and stay unique and increasing over the whole
+ * repository; a concurrent map from id to shard sends every operation by id straight
+ * to the one shard holding the post. Queries over all posts fan out over a
+ * {@link ForkJoinPool}, one task per shard, and the partial results are merged
+ * pairwise by id, so they list posts in the order they were added.
+ *
+ * Every shard keeps its own snapshots and change events; there is no snapshot of the
+ * whole repository, and a batch spanning several shards is applied shard by shard.
+ * The sharded repository is in-memory only.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public class ShardedPostRepository implements AutoCloseable {
+
+    private static final MetricRegistry METRICS = MetricRegistry.getDefault();
+    private static final LatencyHistogram FIND_POSTS = METRICS.histogram("shardedRepository.findPosts");
+    private static final LatencyHistogram COUNT_POSTS = METRICS.histogram("shardedRepository.countPosts");
+
+    private final PostRepository[] shards;
+    private final Map<Long, PostRepository> shardsById = new ConcurrentHashMap<>();
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates an empty sharded repository with one shard per available processor,
+     * fanning out queries over the common pool.
+     */
+    public ShardedPostRepository() {
+        this(Runtime.getRuntime().availableProcessors(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an empty sharded repository.
+     *
+     * @param shardCount The number of shards; at least 1
+     * @param pool The pool running queries over all shards
+     * @throws IllegalArgumentException if the shard count is less than 1
+     */
+    public ShardedPostRepository(int shardCount, ForkJoinPool pool) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("A sharded repository needs at least one shard.");
+        }
+        AtomicLong ids = new AtomicLong(1);
+        this.shards = new PostRepository[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new PostRepository(ids);
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return The shard count
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Adds a new post to the shard of its author.
+     *
+     * @param post The post to add; its id is assigned as by {@link PostRepository#addPost(Post)}
+     * @return The stored post, carrying its id
+     */
+    public Post addPost(Post post) {
+        PostRepository shard = shardOf(post.getAuthor());
+        Post stored = shard.addPost(post);
+        shardsById.put(stored.getId(), shard);
+        return stored;
+    }
+
+    /**
+     * Adds several posts, grouped by shard; each group is added as one batch of its
+     * shard. The groups are added in parallel, so the batch is not atomic: if one group
+     * is rejected, the others may already have been added.
+     *
+     * @param batch The posts to add
+     * @return The stored posts, carrying their ids, in the order of the batch
+     */
+    public List<Post> addPosts(List<Post> batch) {
+        List<List<Integer>> positions = new ArrayList<>(shards.length);
+        List<List<Post>> groups = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            positions.add(new ArrayList<>());
+            groups.add(new ArrayList<>());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            int shard = shardIndex(batch.get(i).getAuthor());
+            positions.get(shard).add(i);
+            groups.get(shard).add(batch.get(i));
+        }
+        Post[] stored = new Post[batch.size()];
+        pool.invoke(new ShardTask<Void>(0, shards.length, shard -> {
+            List<Post> added = shards[shard].addPosts(groups.get(shard));
+            for (int i = 0; i < added.size(); i++) {
+                stored[positions.get(shard).get(i)] = added.get(i);
+                shardsById.put(added.get(i).getId(), shards[shard]);
+            }
+            return null;
+        }, (left, right) -> null));
+        return List.of(stored);
+    }
+
+    /**
+     * Returns the post with the given id.
+     *
+     * @param id The id of the post
+     * @return The post, or null if no post has that id
+     */
+    public Post getPost(long id) {
+        PostRepository shard = shardsById.get(id);
+        return shard == null ? null : shard.getPost(id);
+    }
+
+    /**
+     * Retrieves the posts of an author from the author's shard.
+     *
+     * @param author The author's name
+     * @return An unmodifiable list of the posts written by the author
+     */
+    public List<Post> getPostsByAuthor(String author) {
+        if (author == null) {
+            return List.of();
+        }
+        return shardOf(author).getPostsByAuthor(author);
+    }
+
+    /**
+     * Deletes the post with the given id.
+     *
+     * @param id The id of the post to delete
+     * @throws PostNotFoundException if no post has that id
+     */
+    public void deletePost(long id) throws PostNotFoundException {
+        PostRepository shard = shardOfId(id);
+        shard.deletePost(id);
+        shardsById.remove(id, shard);
+    }
+
+    /**
+     * Modifies the title or the content of the post with the given id. The author does
+     * not change, so the post stays in its shard.
+     *
+     * @param id The id of the post to modify
+     * @param newValue The new title or content
+     * @param type Which field to modify
+     * @throws PostNotFoundException if no post has that id
+     */
+    public void modifyPost(long id, String newValue, PostRepository.ModificationType type) throws PostNotFoundException {
+        shardOfId(id).modifyPost(id, newValue, type);
+    }
+
+    /**
+     * Returns the number of posts in all shards.
+     *
+     * @return The post count
+     */
+    public int getPostCount() {
+        int count = 0;
+        for (PostRepository shard : shards) {
+            count += shard.getPostCount();
+        }
+        return count;
+    }
+
+    /**
+     * Returns all posts, ordered by id.
+     *
+     * @return A copy of the posts of all shards
+     */
+    public List<Post> getallPosts() {
+        return findPosts(post -> true);
+    }
+
+    /**
+     * Finds the posts matching a filter. Every shard is filtered by its own task of the
+     * pool, on the shard's current snapshot, and the matches are merged by id.
+     *
+     * @param filter The filter; called concurrently from several threads
+     * @return The matching posts, ordered by id
+     */
+    public List<Post> findPosts(Predicate<? super Post> filter) {
+        long start = System.nanoTime();
+        try {
+            return pool.invoke(new ShardTask<>(0, shards.length, shard -> {
+                List<Post> matches = new ArrayList<>();
+                for (Post post : shards[shard].getallPosts()) {
+                    if (filter.test(post)) {
+                        matches.add(post);
+                    }
+                }
+                return matches;
+            }, ShardedPostRepository::mergeById));
+        } finally {
+            FIND_POSTS.recordSince(start);
+        }
+    }
+
+    /**
+     * Counts the posts matching a filter, fanning out like {@link #findPosts(Predicate)}.
+     *
+     * @param filter The filter; called concurrently from several threads
+     * @return The number of matching posts
+     */
+    public long countPosts(Predicate<? super Post> filter) {
+        long start = System.nanoTime();
+        try {
+            return pool.invoke(new ShardTask<>(0, shards.length, shard -> {
+                long count = 0;
+                for (Post post : shards[shard].getallPosts()) {
+                    if (filter.test(post)) {
+                        count++;
+                    }
+                }
+                return count;
+            }, Long::sum));
+        } finally {
+            COUNT_POSTS.recordSince(start);
+        }
+    }
+
+    /**
+     * Closes all shards.
+     */
+    @Override
+    public void close() {
+        for (PostRepository shard : shards) {
+            try {
+                shard.close();
+            } catch (IOException e) {
+                // In-memory shards have no journal to close.
+            }
+        }
+    }
+
+    private PostRepository shardOf(String author) {
+        return shards[shardIndex(author)];
+    }
+
+    /**
+     * Returns the shard of an author: the spread hash of the lower-cased name, so
+     * authors differing only in case, which {@link PostRepository#getPostsByAuthor(String)}
+     * treats as one, share a shard.
+     */
+    private int shardIndex(String author) {
+        int hash = author.toLowerCase(Locale.ROOT).hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    private PostRepository shardOfId(long id) throws PostNotFoundException {
+        PostRepository shard = shardsById.get(id);
+        if (shard == null) {
+            throw new PostNotFoundException("Post " + id + " not found.");
+        }
+        return shard;
+    }
+
+    /**
+     * Merges two lists ordered by id into one.
+     */
+    private static List<Post> mergeById(List<Post> left, List<Post> right) {
+        if (left.isEmpty()) {
+            return right;
+        }
+        if (right.isEmpty()) {
+            return left;
+        }
+        List<Post> merged = new ArrayList<>(left.size() + right.size());
+        int i = 0;
+        int j = 0;
+        while (i < left.size() && j < right.size()) {
+            merged.add(left.get(i).getId() < right.get(j).getId() ? left.get(i++) : right.get(j++));
+        }
+        merged.addAll(left.subList(i, left.size()));
+        merged.addAll(right.subList(j, right.size()));
+        return merged;
+    }
+
+    /**
+     * Runs a function for a range of shards, splitting the range in halves until every
+     * task handles one shard, and combines the results of the halves.
+     */
+    private static final class ShardTask<T> extends RecursiveTask<T> {
+
+        private final int from;
+        private final int to;
+        private final IntFunction<T> perShard;
+        private final BinaryOperator<T> combine;
+
+        ShardTask(int from, int to, IntFunction<T> perShard, BinaryOperator<T> combine) {
+            this.from = from;
+            this.to = to;
+            this.perShard = perShard;
+            this.combine = combine;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from == 1) {
+                return perShard.apply(from);
+            }
+            int middle = (from + to) >>> 1;
+            ShardTask<T> right = new ShardTask<>(middle, to, perShard, combine);
+            right.fork();
+            T left = new ShardTask<>(from, middle, perShard, combine).compute();
+            return combine.apply(left, right.join());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The TextTokenizer class splits post text into search terms.
+ *
+ * Terms are maximal runs of letters and digits, lower-cased and folded to plain
+ * ASCII where possible, so "Żółć", "żółć" and "zolc" all produce the same term.
+ * Polish letters are folded by a direct mapping (including "ł", which has no Unicode
+ * decomposition); other accented letters are folded by stripping combining marks.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public final class TextTokenizer {
+
+    private TextTokenizer() {}
+
+    /**
+     * Splits the text into folded terms, in order of appearance.
+     *
+     * @param text The text to tokenize
+     * @return The terms; empty for null or blank text
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                fold(c, term);
+            } else if (term.length() > 0) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (term.length() > 0) {
+            terms.add(term.toString());
+        }
+        return terms;
+    }
+
+    private static void fold(char c, StringBuilder term) {
+        char lower = Character.toLowerCase(c);
+        switch (lower) {
+            case 'ą' -> term.append('a');
+            case 'ć' -> term.append('c');
+            case 'ę' -> term.append('e');
+            case 'ł' -> term.append('l');
+            case 'ń' -> term.append('n');
+            case 'ó' -> term.append('o');
+            case 'ś' -> term.append('s');
+            case 'ź', 'ż' -> term.append('z');
+            default -> {
+                if (lower < 0x80) {
+                    term.append(lower);
+                } else {
+                    String decomposed = Normalizer.normalize(String.valueOf(lower), Normalizer.Form.NFD);
+                    for (int i = 0; i < decomposed.length(); i++) {
+                        char part = decomposed.charAt(i);
+                        if (Character.getType(part) != Character.NON_SPACING_MARK) {
+                            term.append(part);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
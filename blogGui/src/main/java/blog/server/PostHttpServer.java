@@ -0,0 +1,356 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.server;
+
+import blog.metrics.Counter;
+import blog.metrics.LatencyHistogram;
+import blog.metrics.MetricRegistry;
+import blog.model.JsonCodec;
+import blog.model.Post;
+import blog.model.PostBatch;
+import blog.model.PostNotFoundException;
+import blog.model.PostQuery;
+import blog.model.PostRepository;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The PostHttpServer class serves a {@link PostRepository} over HTTP with the JDK's
+ * built-in server, so other tools can read and write posts without the GUI.
+ *
+ * <pre>
+ * GET    /posts?offset=0&amp;limit=50   one page of posts, ordered by id
+ * GET    /posts?author=..&amp;title=..&amp;titlePrefix=..&amp;contains=..
+ *                                  the posts matching all given conditions
+ * GET    /posts?...&amp;explain         the query plan instead of the posts
+ * POST   /posts                    adds {"title", "author", "content"}; 201 with Location
+ * GET    /posts/{id}               one post
+ * PATCH  /posts/{id}               changes {"title"} and/or {"content"} atomically
+ * DELETE /posts/{id}               deletes the post; 204
+ * GET    /metrics                  the application metrics report
+ * </pre>
+ *
+ * Posts are encoded by {@link PostJson}. Lists are returned as
+ * {@code {"total": n, "posts": [...]}}, errors as {@code {"error": "..."}} with status
+ * 400 for invalid requests, 404 for unknown posts and 405 for unsupported methods. Any
+ * other failure is logged on the server and answered with a generic 500 message, so
+ * internal details never reach the client.
+ *
+ * Every request runs on its own virtual thread, so a request waiting for the write lock
+ * or the journal does not hold up the others, and reads go straight to the repository's
+ * lock-free snapshot. Responses are sent with a fixed length and Nagle's algorithm is
+ * disabled, as small responses otherwise wait for the client's delayed ACK.
+ *
+ * Request latencies are recorded in the default {@link MetricRegistry} under
+ * {@code http.<method>}, failed requests are counted as {@code http.errors}.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public final class PostHttpServer implements AutoCloseable {
+
+    static {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private static final System.Logger LOG = System.getLogger(PostHttpServer.class.getName());
+    private static final MetricRegistry METRICS = MetricRegistry.getDefault();
+    private static final LatencyHistogram GET = METRICS.histogram("http.get");
+    private static final LatencyHistogram POST = METRICS.histogram("http.post");
+    private static final LatencyHistogram PATCH = METRICS.histogram("http.patch");
+    private static final LatencyHistogram DELETE = METRICS.histogram("http.delete");
+    private static final Counter ERRORS = METRICS.counter("http.errors");
+
+    /**
+     * The page size of list requests without a limit.
+     */
+    public static final int DEFAULT_LIMIT = 50;
+
+    /**
+     * The largest page size of list requests.
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    private static final int BACKLOG = 1024;
+    private static final int MAX_BODY = 1 << 20;
+
+    private final PostRepository repository;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a server for a repository; it accepts connections once started.
+     *
+     * @param repository The repository to serve
+     * @param address The address to listen on; port 0 picks a free port
+     * @throws IOException if the address cannot be bound
+     */
+    public PostHttpServer(PostRepository repository, InetSocketAddress address) throws IOException {
+        this.repository = repository;
+        this.server = HttpServer.create(address, BACKLOG);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/posts", this::handlePosts);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return The port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests and waits up to a second for running requests to finish.
+     * The repository is not closed.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.close();
+    }
+
+    private void handlePosts(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        String method = exchange.getRequestMethod();
+        try {
+            String path = exchange.getRequestURI().getRawPath();
+            if (path.equals("/posts") || path.equals("/posts/")) {
+                switch (method) {
+                    case "GET" -> listPosts(exchange);
+                    case "POST" -> addPost(exchange);
+                    default -> methodNotAllowed(exchange, "GET, POST");
+                }
+            } else {
+                long id = parseId(path.substring("/posts/".length()));
+                switch (method) {
+                    case "GET" -> getPost(exchange, id);
+                    case "PATCH" -> modifyPost(exchange, id);
+                    case "DELETE" -> deletePost(exchange, id);
+                    default -> methodNotAllowed(exchange, "GET, PATCH, DELETE");
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (PostNotFoundException e) {
+            sendError(exchange, 404, e.getMessage());
+        } catch (RuntimeException e) {
+            LOG.log(System.Logger.Level.ERROR, method + " " + exchange.getRequestURI() + " failed", e);
+            sendError(exchange, 500, "Internal server error.");
+        } finally {
+            exchange.close();
+            histogramOf(method).recordSince(start);
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                methodNotAllowed(exchange, "GET");
+                return;
+            }
+            send(exchange, 200, "text/plain; charset=utf-8", METRICS.getReport().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void listPosts(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        int offset = intParam(params, "offset", 0, 0, Integer.MAX_VALUE);
+        int limit = intParam(params, "limit", DEFAULT_LIMIT, 0, MAX_LIMIT);
+        PostQuery query = queryOf(params);
+        if (params.containsKey("explain")) {
+            String plan = query == null ? "SCAN of " + repository.getPostCount() + " posts" : repository.explain(query).toString();
+            sendJson(exchange, 200, PostJson.field("plan", plan));
+            return;
+        }
+        if (query == null) {
+            int total = repository.getPostCount();
+            sendJson(exchange, 200, PostJson.posts(repository.getPosts(offset, limit), total));
+            return;
+        }
+        List<Post> matches = repository.query(query);
+        int from = Math.min(offset, matches.size());
+        int to = (int) Math.min(matches.size(), (long) from + limit);
+        sendJson(exchange, 200, PostJson.posts(matches.subList(from, to), matches.size()));
+    }
+
+    private void getPost(HttpExchange exchange, long id) throws IOException, PostNotFoundException {
+        Post post = repository.getPost(id);
+        if (post == null) {
+            throw new PostNotFoundException("Post " + id + " not found.");
+        }
+        sendJson(exchange, 200, PostJson.post(post));
+    }
+
+    private void addPost(HttpExchange exchange) throws IOException {
+        Map<String, String> fields = JsonCodec.parseObject(readBody(exchange));
+        Post stored = repository.addPost(new Post(required(fields, "title"), required(fields, "author"),
+                required(fields, "content")));
+        exchange.getResponseHeaders().set("Location", "/posts/" + stored.getId());
+        sendJson(exchange, 201, PostJson.post(stored));
+    }
+
+    private void modifyPost(HttpExchange exchange, long id) throws IOException, PostNotFoundException {
+        Map<String, String> fields = JsonCodec.parseObject(readBody(exchange));
+        PostBatch batch = new PostBatch();
+        if (fields.containsKey("title")) {
+            batch.modifyTitle(id, required(fields, "title"));
+        }
+        if (fields.containsKey("content")) {
+            batch.modifyContent(id, required(fields, "content"));
+        }
+        if (batch.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to change: give a title or a content.");
+        }
+        sendJson(exchange, 200, PostJson.post(repository.update(batch).get(0)));
+    }
+
+    private void deletePost(HttpExchange exchange, long id) throws IOException, PostNotFoundException {
+        repository.deletePost(id);
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    /**
+     * Builds the conjunction of the filter parameters, or returns null if none is given.
+     */
+    private static PostQuery queryOf(Map<String, String> params) {
+        PostQuery query = null;
+        String value;
+        if ((value = params.get("author")) != null) {
+            query = and(query, PostQuery.author(value));
+        }
+        if ((value = params.get("title")) != null) {
+            query = and(query, PostQuery.title(value));
+        }
+        if ((value = params.get("titlePrefix")) != null) {
+            query = and(query, PostQuery.titleStartsWith(value));
+        }
+        if ((value = params.get("contains")) != null) {
+            query = and(query, PostQuery.titleContains(value).or(PostQuery.contentContains(value)));
+        }
+        return query;
+    }
+
+    private static PostQuery and(PostQuery query, PostQuery condition) {
+        return query == null ? condition : query.and(condition);
+    }
+
+    private static long parseId(String text) {
+        try {
+            long id = Long.parseLong(text);
+            if (id > 0) {
+                return id;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        throw new IllegalArgumentException("Invalid post id: " + text);
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue, int min, int max) {
+        String value = params.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= min) {
+                return Math.min(parsed, max);
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        throw new IllegalArgumentException("Invalid " + name + ": " + value);
+    }
+
+    private static String required(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing " + name + ".");
+        }
+        return value;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY + 1);
+            if (body.length > MAX_BODY) {
+                throw new IllegalArgumentException("The request body is larger than " + MAX_BODY + " bytes.");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void methodNotAllowed(HttpExchange exchange, String allowed) throws IOException {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        sendError(exchange, 405, "Method " + exchange.getRequestMethod() + " is not allowed.");
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        ERRORS.increment();
+        sendJson(exchange, status, PostJson.field("error", message == null ? "" : message));
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, byte[] body) throws IOException {
+        send(exchange, status, "application/json; charset=utf-8", body);
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static LatencyHistogram histogramOf(String method) {
+        return switch (method) {
+            case "POST" -> POST;
+            case "PATCH" -> PATCH;
+            case "DELETE" -> DELETE;
+            default -> GET;
+        };
+    }
+}
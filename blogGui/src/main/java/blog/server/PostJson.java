@@ -0,0 +1,91 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.server;
+
+import blog.model.JsonCodec;
+import blog.model.Post;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The PostJson class encodes the posts and messages returned by the HTTP service as JSON.
+ *
+ * Posts are written field by field from their getters into one StringBuilder, so the
+ * encoding neither goes through {@link Post#toString()} nor needs a JSON library. Strings
+ * are escaped by {@link JsonCodec}, which also decodes the request bodies.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public final class PostJson {
+
+    private PostJson() {}
+
+    /**
+     * Encodes one post.
+     *
+     * @param post The post
+     * @return The UTF-8 encoded JSON object
+     */
+    public static byte[] post(Post post) {
+        StringBuilder json = new StringBuilder(128 + post.getTitle().length());
+        appendPost(json, post);
+        return bytes(json);
+    }
+
+    /**
+     * Encodes a page of posts together with the total number of posts it was taken from.
+     *
+     * @param posts The posts of the page
+     * @param total The number of posts matching the request
+     * @return The UTF-8 encoded JSON object {@code {"total": n, "posts": [...]}}
+     */
+    public static byte[] posts(List<Post> posts, int total) {
+        StringBuilder json = new StringBuilder(64 + 160 * posts.size());
+        json.append("{\"total\":").append(total).append(",\"posts\":[");
+        for (int i = 0; i < posts.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendPost(json, posts.get(i));
+        }
+        json.append("]}");
+        return bytes(json);
+    }
+
+    /**
+     * Encodes an object with one string field, e.g. an error message.
+     *
+     * @param name The field name
+     * @param value The field value
+     * @return The UTF-8 encoded JSON object
+     */
+    public static byte[] field(String name, String value) {
+        StringBuilder json = new StringBuilder(16 + value.length());
+        json.append('{');
+        JsonCodec.appendString(json, name);
+        json.append(':');
+        JsonCodec.appendString(json, value);
+        json.append('}');
+        return bytes(json);
+    }
+
+    private static void appendPost(StringBuilder json, Post post) {
+        json.append("{\"id\":").append(post.getId())
+                .append(",\"createdAt\":").append(post.getCreatedAt())
+                .append(",\"title\":");
+        JsonCodec.appendString(json, post.getTitle());
+        json.append(",\"author\":");
+        JsonCodec.appendString(json, post.getAuthor());
+        json.append(",\"content\":");
+        JsonCodec.appendString(json, post.getContent());
+        json.append('}');
+    }
+
+    private static byte[] bytes(StringBuilder json) {
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
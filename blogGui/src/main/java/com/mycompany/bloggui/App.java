@@ -1,13 +1,30 @@
 package com.mycompany.bloggui;
 
+import blog.metrics.MetricRegistry;
+import blog.metrics.StartupTimeline;
+import blog.model.AsyncPostRepository;
 import blog.model.PostRepository; 
-import blog.controller.MenuController;
+import blog.model.PostSnapshot;
+import blog.controller.DebugHud;
+import blog.controller.ViewManager;
+import blog.server.PostHttpServer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.stage.Stage;
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.management.JMException;
 
 /**
  * Main application class for the Blog GUI.
@@ -16,34 +33,160 @@ import java.io.IOException;
  */
 public class App extends Application {
 
+    private static final System.Logger LOG = System.getLogger(App.class.getName());
+
     private Scene scene;
     private PostRepository repository;
+    private ViewManager viewManager;
+    private Path snapshotFile;
+    private Path metricsFile;
+    private final StartupTimeline startup = new StartupTimeline();
+    private final ExecutorService startupExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private CompletableFuture<Void> repositoryReady;
 
     /**
-     * Initializes the PostRepository when the application starts.
+     * Starts loading the application in the background: the posts are loaded into the
+     * PostRepository while the FXML views and the stylesheet are parsed and the search
+     * index is built, each on its own virtual thread. The window is shown as soon as
+     * {@link #start(Stage)} runs and the posts appear in batches as they are loaded.
+     *
+     * When started with {@code --dataDir=<directory>}, the repository is persistent
+     * and journals every change into that directory. When started with
+     * {@code --snapshot=<file>}, the posts are loaded from that snapshot file if it
+     * exists and saved back to it on exit.
+     *
+     * The application metrics are published over JMX; with {@code --metrics=<file>}
+     * they are also written to that file on exit. The startup phases are logged at INFO
+     * once the posts are loaded and recorded as {@code startup.<phase>}.
      */
     @Override
     public void init() {
-        repository = new PostRepository();
+        startup.mark("init");
+        String dataDir = getParameters().getNamed().get("dataDir");
+        String snapshot = getParameters().getNamed().get("snapshot");
+        String metrics = getParameters().getNamed().get("metrics");
+        if (metrics != null) {
+            metricsFile = Path.of(metrics);
+        }
+        if (snapshot != null && dataDir == null) {
+            snapshotFile = Path.of(snapshot);
+        }
+        try {
+            MetricRegistry.getDefault().registerMBeans();
+        } catch (JMException e) {
+            LOG.log(System.Logger.Level.WARNING, "Metrics are not available over JMX: " + e.getMessage());
+        }
+        repository = PostRepository.loading();
+        MetricRegistry.getDefault().gauge("repository.size", repository::getPostCount);
+        MetricRegistry.getDefault().gauge("queryCache.size", repository.getQueryCache()::size);
+        MetricRegistry.getDefault().gauge("queryCache.weight", repository.getQueryCache()::getWeight);
+        viewManager = new ViewManager(repository, startup);
+        viewManager.preload(startupExecutor);
+        repositoryReady = repository.startLoading(() -> loadRepository(dataDir), startupExecutor);
+    }
+
+    /**
+     * Builds the repository whose posts are loaded into the application's repository.
+     *
+     * @param dataDir the journal directory, or null
+     * @return the loaded repository
+     * @throws IOException if the persistent repository or the snapshot cannot be opened
+     */
+    private PostRepository loadRepository(String dataDir) throws IOException {
+        StartupTimeline.Phase phase = startup.begin("repository.load");
+        try {
+            return openRepository(dataDir, snapshotFile);
+        } finally {
+            phase.end();
+        }
     }
 
     /**
-     * Starts the application, loading the main MenuView and setting up the repository.
+     * Opens the persistent repository in the journal directory if one is given, or else
+     * loads the snapshot file if it exists, or else creates a repository with the
+     * sample posts.
+     *
+     * @param dataDir the journal directory, or null
+     * @param snapshotFile the snapshot file, or null
+     * @return the repository
+     * @throws IOException if the persistent repository or the snapshot cannot be opened
+     */
+    private static PostRepository openRepository(String dataDir, Path snapshotFile) throws IOException {
+        if (dataDir != null) {
+            return PostRepository.open(Path.of(dataDir));
+        } else if (snapshotFile != null && Files.exists(snapshotFile)) {
+            return PostSnapshot.load(snapshotFile);
+        }
+        return new PostRepository();
+    }
+
+    /**
+     * Shows the main MenuView right away, while the posts may still be loading. The
+     * remaining views are already being parsed in the background. F12 toggles the debug
+     * overlay, which is shown from the start with {@code --hud}.
+     *
+     * If the posts cannot be loaded, an error is shown and the application exits.
      *
      * @param stage the primary stage for this application
      * @throws IOException if the MenuView FXML file cannot be loaded
      */
     @Override
     public void start(Stage stage) throws IOException {
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/FXML/MenuView.fxml"));
-        Parent root = loader.load();
-        MenuController menuController = loader.getController();
-        menuController.setRepository(repository);
-        scene = new Scene(root, 1050, 500);
-        scene.getStylesheets().add(getClass().getResource("/FXML/style.css").toExternalForm());
+        StartupTimeline.Phase phase = startup.begin("scene");
+        scene = viewManager.createScene(1050, 500);
         stage.setTitle("Blog");
         stage.setScene(scene);
+        Runnable firstPaint = new Runnable() {
+            @Override
+            public void run() {
+                startup.mark("firstPaint");
+                scene.removePostLayoutPulseListener(this);
+            }
+        };
+        scene.addPostLayoutPulseListener(firstPaint);
         stage.show();
+        phase.end();
+        DebugHud hud = new DebugHud(stage, viewManager.getProfiler());
+        if (getParameters().getUnnamed().contains("--hud")) {
+            hud.show();
+        }
+        repositoryReady.whenCompleteAsync((ignored, error) -> {
+            if (error == null) {
+                startup.mark("dataReady");
+                LOG.log(System.Logger.Level.INFO, startup.report());
+                return;
+            }
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setHeaderText(null);
+            alert.setContentText("The posts could not be loaded: " + AsyncPostRepository.messageOf(error));
+            alert.showAndWait();
+            Platform.exit();
+        }, viewManager.getDispatcher());
+    }
+
+    /**
+     * Flushes and closes the repository when the application exits, and saves the
+     * snapshot and metrics files if they were given. The snapshot is only saved if
+     * the posts were loaded completely.
+     *
+     * @throws IOException if pending changes could not be persisted
+     */
+    @Override
+    public void stop() throws IOException {
+        if (viewManager != null) {
+            viewManager.close();
+        }
+        boolean loaded = repositoryReady != null
+                && repositoryReady.handle((ignored, error) -> error == null).join();
+        if (snapshotFile != null && loaded) {
+            PostSnapshot.writeAsync(repository, snapshotFile).join();
+        }
+        startupExecutor.shutdown();
+        repository.close();
+        if (metricsFile != null) {
+            MetricRegistry.getDefault().dump(metricsFile);
+        }
     }
 
     /**
@@ -77,6 +220,73 @@ public class App extends Application {
         return repository;
     }
 
+    /**
+     * Runs the application without the GUI, serving the repository over HTTP until the
+     * process is terminated; see {@link PostHttpServer} for the endpoints. Accepts the
+     * same {@code --dataDir}, {@code --snapshot} and {@code --metrics} options as the GUI
+     * and {@code --port=<port>}, 8080 by default. On shutdown the server is stopped and
+     * the snapshot and metrics files are written as in {@link #stop()}.
+     *
+     * @param args command-line arguments
+     * @throws IOException if the repository cannot be opened or the port cannot be bound
+     * @throws IllegalArgumentException if {@code --port} is not a valid port number
+     */
+    static void runHeadless(String[] args) throws IOException {
+        Map<String, String> named = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (arg.startsWith("--") && equals > 2) {
+                named.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        String dataDir = named.get("dataDir");
+        Path snapshot = named.containsKey("snapshot") && dataDir == null ? Path.of(named.get("snapshot")) : null;
+        Path metrics = named.containsKey("metrics") ? Path.of(named.get("metrics")) : null;
+        int port = parsePort(named.getOrDefault("port", "8080"));
+
+        PostRepository repository = openRepository(dataDir, snapshot);
+        MetricRegistry.getDefault().gauge("repository.size", repository::getPostCount);
+        MetricRegistry.getDefault().gauge("queryCache.size", repository.getQueryCache()::size);
+        MetricRegistry.getDefault().gauge("queryCache.weight", repository.getQueryCache()::getWeight);
+        PostHttpServer server = new PostHttpServer(repository, new InetSocketAddress(port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            try {
+                if (snapshot != null) {
+                    PostSnapshot.writeAsync(repository, snapshot).join();
+                }
+                repository.close();
+                if (metrics != null) {
+                    MetricRegistry.getDefault().dump(metrics);
+                }
+            } catch (IOException e) {
+                LOG.log(System.Logger.Level.ERROR, "Pending changes could not be persisted", e);
+            }
+        }, "shutdown"));
+        server.start();
+        LOG.log(System.Logger.Level.INFO,
+                "Serving " + repository.getPostCount() + " posts on http://localhost:" + server.getPort() + "/posts");
+    }
+
+    /**
+     * Reads the {@code --port} value; 0 picks a free port.
+     *
+     * @param value the value given after {@code --port=}
+     * @return the port number
+     * @throws IllegalArgumentException if the value is not a number from 0 to 65535
+     */
+    private static int parsePort(String value) {
+        try {
+            int port = Integer.parseInt(value);
+            if (port >= 0 && port <= 0xFFFF) {
+                return port;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below together with out-of-range values.
+        }
+        throw new IllegalArgumentException("Invalid --port value '" + value + "': expected a number from 0 to 65535.");
+    }
+
     /**
      * Main method to launch the application.
      *
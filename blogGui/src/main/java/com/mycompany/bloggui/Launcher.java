@@ -0,0 +1,43 @@
+package com.mycompany.bloggui;
+
+import java.io.IOException;
+import java.util.Arrays;
+import javafx.application.Application;
+
+/**
+ * Entry point choosing between the GUI and the headless HTTP service.
+ *
+ * The Java launcher starts the JavaFX toolkit before calling {@code main} of a class
+ * extending {@link Application}, which fails without a display. This class does not
+ * extend it, so {@code --headless} runs without JavaFX, e.g.
+ * {@code mvn javafx:run -Djavafx.args="--headless --port=8080 --snapshot=posts.bin"}.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+public final class Launcher {
+
+    private static final System.Logger LOG = System.getLogger(Launcher.class.getName());
+
+    private Launcher() {}
+
+    /**
+     * Serves the posts over HTTP with {@code --headless}, or else shows the GUI. An
+     * invalid headless option is reported without a stack trace and exits with status 2.
+     *
+     * @param args command-line arguments
+     * @throws IOException if the headless server cannot be started
+     */
+    public static void main(String[] args) throws IOException {
+        if (Arrays.asList(args).contains("--headless")) {
+            try {
+                App.runHeadless(args);
+            } catch (IllegalArgumentException e) {
+                LOG.log(System.Logger.Level.ERROR, e.getMessage());
+                System.exit(2);
+            }
+        } else {
+            Application.launch(App.class, args);
+        }
+    }
+}
@@ -2,6 +2,8 @@ module com.mycompany.blog {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.base;
+    requires java.management;
+    requires jdk.httpserver;
     requires lombok;    
 
     opens com.mycompany.bloggui to javafx.fxml;
@@ -9,5 +11,7 @@ module com.mycompany.blog {
     exports com.mycompany.bloggui;
     exports blog.controller;
     exports blog.model;
+    exports blog.metrics;
+    exports blog.server;
 
 }
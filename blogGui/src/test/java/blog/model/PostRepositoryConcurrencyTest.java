@@ -0,0 +1,194 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Stress test for the PostRepository locking. Writer threads add, delete and modify
+ * posts, one at a time and in batches, while reader threads check every snapshot they
+ * see. Afterwards the id, title and author indexes and the query cache must agree with
+ * the final snapshot.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+@Timeout(value = 60, unit = TimeUnit.SECONDS)
+class PostRepositoryConcurrencyTest {
+
+    private static final int INITIAL_POSTS = 2_000;
+    private static final int WRITERS = 8;
+    private static final int READERS = 2;
+    private static final int OPERATIONS_PER_WRITER = 5_000;
+    private static final int TITLES = 50;
+    private static final int AUTHORS = 20;
+
+    @Test
+    void indexesMatchSnapshotAfterConcurrentChanges() throws Exception {
+        List<Post> initial = new ArrayList<>(INITIAL_POSTS);
+        for (int i = 0; i < INITIAL_POSTS; i++) {
+            initial.add(new Post(title(i), author(i), "Treść " + i));
+        }
+        PostRepository repository = new PostRepository(initial);
+
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger deleted = new AtomicInteger();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                long seed = w;
+                writers.add(executor.submit(task(start, () -> write(repository, new Random(seed), added, deleted))));
+            }
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < READERS; r++) {
+                long seed = 100 + r;
+                readers.add(executor.submit(task(start, () -> read(repository, new Random(seed), writing))));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        PersistentPostList snapshot = repository.getallPosts();
+        assertEquals(INITIAL_POSTS + added.get() - deleted.get(), snapshot.size());
+        assertEquals(snapshot.size(), repository.getPostCount());
+        assertOrderedById(snapshot);
+        for (Post post : snapshot) {
+            assertSame(post, repository.getPost(post.getId()), "Id index differs for post " + post.getId());
+        }
+        for (int i = 0; i < AUTHORS; i++) {
+            String author = author(i);
+            assertEquals(ids(snapshot, post -> post.getAuthor().equals(author)),
+                    sortedIds(repository.getPostsByAuthor(author)), "Author index differs for " + author);
+        }
+        for (int i = 0; i < TITLES; i++) {
+            String title = title(i);
+            assertEquals(ids(snapshot, post -> post.getTitle().equals(title)),
+                    sortedIds(repository.query(PostQuery.title(title))), "Title index differs for " + title);
+        }
+    }
+
+    /**
+     * Applies random changes to the repository. Deletes and modifications pick their
+     * post from a snapshot, so another writer may have deleted it in the meantime.
+     */
+    private static void write(PostRepository repository, Random random, AtomicInteger added, AtomicInteger deleted) {
+        for (int i = 0; i < OPERATIONS_PER_WRITER; i++) {
+            int choice = random.nextInt(10);
+            if (choice < 4) {
+                int n = random.nextInt(1_000_000);
+                repository.addPost(new Post(title(n), author(n), "Treść " + n));
+                added.incrementAndGet();
+                continue;
+            }
+            PersistentPostList snapshot = repository.getallPosts();
+            if (snapshot.size() < 3) {
+                continue;
+            }
+            long id = snapshot.get(random.nextInt(snapshot.size())).getId();
+            try {
+                if (choice < 6) {
+                    repository.deletePost(id);
+                    deleted.incrementAndGet();
+                } else if (choice < 8) {
+                    repository.modifyPost(id, title(random.nextInt(TITLES)), PostRepository.ModificationType.TITLE);
+                } else if (choice < 9) {
+                    repository.modifyPost(id, "Zmieniona treść " + i, PostRepository.ModificationType.CONTENT);
+                } else {
+                    long other = snapshot.get(random.nextInt(snapshot.size())).getId();
+                    long last = snapshot.get(random.nextInt(snapshot.size())).getId();
+                    if (other == id || last == id || last == other) {
+                        continue;
+                    }
+                    repository.update(new PostBatch()
+                            .modifyTitle(id, title(random.nextInt(TITLES)))
+                            .modifyContent(other, "Treść z paczki " + i)
+                            .delete(last));
+                    deleted.incrementAndGet();
+                }
+            } catch (PostNotFoundException e) {
+                // Deleted by another writer; a failed batch changes nothing.
+            }
+        }
+    }
+
+    /**
+     * Checks snapshots and index lookups while the writers run. The lookups may be
+     * older or newer than the snapshot, so only what holds for any version is checked.
+     */
+    private static void read(PostRepository repository, Random random, AtomicBoolean writing) {
+        while (writing.get()) {
+            assertOrderedById(repository.getallPosts());
+            String author = author(random.nextInt(AUTHORS));
+            for (Post post : repository.getPostsByAuthor(author)) {
+                assertEquals(author, post.getAuthor());
+            }
+            String title = title(random.nextInt(TITLES));
+            for (Post post : repository.query(PostQuery.title(title))) {
+                assertEquals(title, post.getTitle());
+            }
+        }
+    }
+
+    private static Callable<Void> task(CountDownLatch start, Runnable body) {
+        return () -> {
+            start.await();
+            body.run();
+            return null;
+        };
+    }
+
+    private static void assertOrderedById(List<Post> snapshot) {
+        long previous = 0;
+        for (Post post : snapshot) {
+            assertTrue(post.getId() > previous, "Snapshot out of order or duplicated at id " + post.getId());
+            previous = post.getId();
+        }
+    }
+
+    private static List<Long> ids(List<Post> posts, Predicate<Post> filter) {
+        return posts.stream().filter(filter).map(Post::getId).toList();
+    }
+
+    private static List<Long> sortedIds(List<Post> posts) {
+        return posts.stream().map(Post::getId).sorted().toList();
+    }
+
+    private static String title(int n) {
+        return "Tytuł " + n % TITLES;
+    }
+
+    private static String author(int n) {
+        return "Autor " + n % AUTHORS;
+    }
+}
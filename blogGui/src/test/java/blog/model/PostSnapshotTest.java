@@ -0,0 +1,62 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+
+package blog.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Round-trip test for PostSnapshot: a loaded snapshot must be replaceable in place, as
+ * App.stop() does on exit, and loading it again must give back the same posts and the
+ * same next free id.
+ *
+ * @author marcelkuczek
+ * @version 1.0
+ */
+class PostSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadWriteLoadKeepsPostsAndNextId() throws Exception {
+        Path file = directory.resolve("posts.snapshot");
+        List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            posts.add(new Post("Tytuł " + i, "Autor " + i % 10, "Zażółć gęślą jaźń ".repeat(i % 40 + 1)));
+        }
+        PostSnapshot.write(new PostRepository(posts).getallPosts(), file);
+
+        PostRepository first = PostSnapshot.load(file);
+        first.deletePost(1_000);
+        first.modifyPost(1, "Nowy tytuł", PostRepository.ModificationType.TITLE);
+        PostSnapshot.writeAsync(first, file).join();
+        assertEquals(List.of(), listTemporaryFiles());
+
+        PostRepository second = PostSnapshot.load(file);
+        assertEquals(first.nextId(), second.nextId());
+        assertEquals(999, second.getPostCount());
+        for (Post post : first.getallPosts()) {
+            Post loaded = second.getPost(post.getId());
+            assertEquals(post.getCreatedAt(), loaded.getCreatedAt());
+            assertEquals(post.getTitle(), loaded.getTitle());
+            assertEquals(post.getAuthor(), loaded.getAuthor());
+            assertEquals(post.getContent(), loaded.getContent());
+        }
+    }
+
+    private List<Path> listTemporaryFiles() throws Exception {
+        try (var files = Files.list(directory)) {
+            return files.filter(path -> !path.getFileName().toString().equals("posts.snapshot")).toList();
+        }
+    }
+}